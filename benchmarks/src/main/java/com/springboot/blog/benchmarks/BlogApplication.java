@@ -0,0 +1,104 @@
+package com.springboot.blog.benchmarks;
+
+import com.springboot.blog.SpringbootBlogRestApiHandsOnApplication;
+import com.springboot.blog.entity.Category;
+import com.springboot.blog.entity.Comment;
+import com.springboot.blog.entity.Post;
+import com.springboot.blog.entity.Role;
+import com.springboot.blog.entity.User;
+import com.springboot.blog.repository.CategoryRepository;
+import com.springboot.blog.repository.PostRepository;
+import com.springboot.blog.repository.UserRepository;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+//Starts the application on an embedded H2 database with a fixed data set, so runs of different commits measure the same work
+//Any of the settings can be overridden with -jvmArgsAppend -D..., e.g. a MySQL spring.datasource.url
+final class BlogApplication {
+
+    static final int POSTS = 1_000;
+    static final int COMMENTS_PER_POST = 5;
+    static final String ADMIN = "admin";
+
+    private BlogApplication() {
+    }
+
+    static ConfigurableApplicationContext start(String... properties) {
+        Map<String, String> settings = new LinkedHashMap<>();
+        settings.put("spring.datasource.url", "jdbc:h2:mem:benchmarks;MODE=MySQL;DB_CLOSE_DELAY=-1");
+        settings.put("spring.datasource.username", "sa");
+        settings.put("spring.datasource.password", "");
+        settings.put("spring.jpa.hibernate.ddl-auto", "create-drop");
+        settings.put("spring.main.banner-mode", "off");
+        settings.put("logging.level.root", "WARN");
+        settings.put("server.port", "0");
+        //benchmarks drive far more requests per client than the limits allow
+        settings.put("app.rate-limit.enabled", "false");
+        for (String property : properties) {
+            int separator = property.indexOf('=');
+            settings.put(property.substring(0, separator), property.substring(separator + 1));
+        }
+        //passed as arguments to win over application.yml, unless the fork was given the property
+        String[] args = settings.entrySet().stream()
+                .filter(setting -> System.getProperty(setting.getKey()) == null)
+                .map(setting -> "--" + setting.getKey() + "=" + setting.getValue())
+                .toArray(String[]::new);
+        ConfigurableApplicationContext context = SpringApplication.run(SpringbootBlogRestApiHandsOnApplication.class, args);
+        seed(context);
+        return context;
+    }
+
+    //what a successful login of the seeded admin hands to the token provider
+    static Authentication adminAuthentication() {
+        return new UsernamePasswordAuthenticationToken(ADMIN, null, List.of(new SimpleGrantedAuthority("ROLE_ADMIN")));
+    }
+
+    private static void seed(ConfigurableApplicationContext context) {
+        context.getBean(UserRepository.class).save(User.builder()
+                .name("Benchmark admin")
+                .username(ADMIN)
+                .email("admin@example.com")
+                .password(context.getBean(PasswordEncoder.class).encode("benchmark"))
+                .roles(Set.of(new Role(null, "ROLE_ADMIN")))
+                .build());
+
+        Category category = new Category();
+        category.setName("benchmarks");
+        category.setDescription("Posts of the benchmark data set");
+        context.getBean(CategoryRepository.class).save(category);
+
+        PostRepository postRepository = context.getBean(PostRepository.class);
+        List<Post> posts = new ArrayList<>(POSTS);
+        for (int i = 0; i < POSTS; i++) {
+            posts.add(post(i, category, COMMENTS_PER_POST));
+        }
+        postRepository.saveAll(posts);
+    }
+
+    static Post post(int number, Category category, int comments) {
+        Post post = new Post();
+        post.setTitle("Post title " + number);
+        post.setDescription("Description of post " + number);
+        post.setContent("Content of post " + number + ", long enough to look like a short article. ".repeat(3));
+        post.setCategory(category);
+        for (int i = 0; i < comments; i++) {
+            post.getComments().add(Comment.builder()
+                    .name("Reader " + i)
+                    .email("reader" + i + "@example.com")
+                    .body("Comment " + i + " on post " + number)
+                    .post(post)
+                    .build());
+        }
+        return post;
+    }
+}
@@ -0,0 +1,66 @@
+package com.springboot.blog.benchmarks;
+
+import com.springboot.blog.payload.PostResponse;
+import com.springboot.blog.service.PostService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+//PostService.getAllPosts against the embedded database: page query, count query, one query for the page's comments, mapping
+//Offset pages further in cost more, the cursor variant reads the same page without the offset and the count
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class GetAllPostsBenchmark {
+
+    @Param({"10", "50"})
+    private int pageSize;
+
+    @Param({"0", "10"})
+    private int pageNo;
+
+    private ConfigurableApplicationContext context;
+    private PostService postService;
+    private String cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BlogApplication.start();
+        postService = context.getBean(PostService.class);
+        //walk the cursor to the page the offset variant reads
+        for (int page = 0; page < pageNo; page++) {
+            cursor = postService.getAllPostsAfter(cursor, pageSize, "id", "asc").next();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public PostResponse offsetPage() {
+        return postService.getAllPosts(pageNo, pageSize, "id", "asc");
+    }
+
+    @Benchmark
+    public PostResponse cursorPage() {
+        return postService.getAllPostsAfter(cursor, pageSize, "id", "asc");
+    }
+}
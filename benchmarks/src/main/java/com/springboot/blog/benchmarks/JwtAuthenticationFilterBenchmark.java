@@ -0,0 +1,68 @@
+package com.springboot.blog.benchmarks;
+
+import com.springboot.blog.security.JwtAuthenticationFilter;
+import com.springboot.blog.security.JwtTokenProvider;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+//One authenticated request through JwtAuthenticationFilter: header lookup, claims, revocation check, security context
+//The token is the same on every call, as it is for a client between refreshes, so the claims come from the verified cache
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class JwtAuthenticationFilterBenchmark {
+
+    private static final FilterChain CAPTURE_AUTHENTICATION = (request, response) ->
+            request.setAttribute("authentication", SecurityContextHolder.getContext().getAuthentication());
+
+    private ConfigurableApplicationContext context;
+    private JwtAuthenticationFilter filter;
+    private String authorization;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BlogApplication.start();
+        filter = context.getBean(JwtAuthenticationFilter.class);
+        authorization = "Bearer " + context.getBean(JwtTokenProvider.class).generateToken(BlogApplication.adminAuthentication());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object authenticate() throws ServletException, IOException {
+        //a fresh request each call, OncePerRequestFilter skips requests it has already seen
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/posts");
+        request.addHeader("Authorization", authorization);
+        try {
+            filter.doFilter(request, new MockHttpServletResponse(), CAPTURE_AUTHENTICATION);
+            return request.getAttribute("authentication");
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+}
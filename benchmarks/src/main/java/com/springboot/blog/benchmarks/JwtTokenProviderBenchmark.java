@@ -0,0 +1,100 @@
+package com.springboot.blog.benchmarks;
+
+import com.springboot.blog.security.JwtTokenProvider;
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.core.Authentication;
+
+import java.util.concurrent.TimeUnit;
+
+//Issuing an access token, and validating one the way JwtAuthenticationFilter does (parse, token type, revocation)
+//claimsCacheSize 0 makes every validation verify the signature, the default size measures the cached path
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class JwtTokenProviderBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Issuing {
+
+        private ConfigurableApplicationContext context;
+        private JwtTokenProvider jwtTokenProvider;
+        private Authentication authentication;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            context = BlogApplication.start();
+            jwtTokenProvider = context.getBean(JwtTokenProvider.class);
+            authentication = BlogApplication.adminAuthentication();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            context.close();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Validating {
+
+        //more tokens than a zero-sized cache can hold while they are cycled through
+        private static final int TOKENS = 1024;
+
+        @Param({"10000", "0"})
+        private int claimsCacheSize;
+
+        private ConfigurableApplicationContext context;
+        private JwtTokenProvider jwtTokenProvider;
+        private String[] tokens;
+        private int next;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            context = BlogApplication.start("app.jwt.claims-cache-size=" + claimsCacheSize);
+            jwtTokenProvider = context.getBean(JwtTokenProvider.class);
+            Authentication authentication = BlogApplication.adminAuthentication();
+            tokens = new String[TOKENS];
+            for (int i = 0; i < TOKENS; i++) {
+                tokens[i] = jwtTokenProvider.generateToken(authentication);
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            context.close();
+        }
+
+        String nextToken() {
+            String token = tokens[next];
+            next = (next + 1) % TOKENS;
+            return token;
+        }
+    }
+
+    @Benchmark
+    public String generateToken(Issuing issuing) {
+        return issuing.jwtTokenProvider.generateToken(issuing.authentication);
+    }
+
+    @Benchmark
+    public boolean validateToken(Validating validating) {
+        JwtTokenProvider jwtTokenProvider = validating.jwtTokenProvider;
+        Claims claims = jwtTokenProvider.parseClaims(validating.nextToken());
+        return jwtTokenProvider.isAccessToken(claims) && !jwtTokenProvider.isRevoked(claims);
+    }
+}
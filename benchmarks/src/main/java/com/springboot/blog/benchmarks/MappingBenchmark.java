@@ -0,0 +1,117 @@
+package com.springboot.blog.benchmarks;
+
+import com.springboot.blog.entity.Category;
+import com.springboot.blog.entity.Comment;
+import com.springboot.blog.entity.Post;
+import com.springboot.blog.mapper.CommentMapper;
+import com.springboot.blog.mapper.PostMapper;
+import com.springboot.blog.payload.CommentDto;
+import com.springboot.blog.payload.PostDto;
+import com.springboot.blog.repository.projection.PostView;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+//The entity and projection to DTO conversions PostServiceImpl and CommentServiceImpl run for every post and comment they return
+//The mappers come from the application context, PostMapper uses the CommentMapper bean for a post's comments
+//The modelMapper* benchmarks run the same conversions the way the services did before MapStruct, a default ModelMapper
+//calling map(source, Dto.class), as the baseline of the per-object cost
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class MappingBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Mappers {
+
+        private ConfigurableApplicationContext context;
+        private PostMapper postMapper;
+        private CommentMapper commentMapper;
+        private final ModelMapper modelMapper = new ModelMapper();
+        private Category category;
+        private PostView postView;
+        private Comment comment;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            context = BlogApplication.start();
+            postMapper = context.getBean(PostMapper.class);
+            commentMapper = context.getBean(CommentMapper.class);
+            category = new Category();
+            category.setId(1L);
+            Post post = BlogApplication.post(1, category, 1);
+            postView = new PostView(1L, post.getTitle(), post.getDescription(), post.getContent(), category.getId(), 0L, 0L);
+            comment = post.getComments().iterator().next();
+            comment.setId(1L);
+            comment.setVersion(0L);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            context.close();
+        }
+    }
+
+    //the mapped entity carries its comments, the list endpoints map projections and attach the comments themselves
+    @State(Scope.Benchmark)
+    public static class PostEntity {
+
+        @Param({"0", "5", "50"})
+        private int comments;
+
+        private Post post;
+
+        @Setup(Level.Trial)
+        public void setUp(Mappers mappers) {
+            post = BlogApplication.post(1, mappers.category, comments);
+            post.setId(1L);
+            post.setVersion(0L);
+            long commentId = 1;
+            for (Comment comment : post.getComments()) {
+                comment.setId(commentId++);
+                comment.setVersion(0L);
+            }
+        }
+    }
+
+    @Benchmark
+    public PostDto postEntityToDto(Mappers mappers, PostEntity postEntity) {
+        return mappers.postMapper.mapToDTO(postEntity.post);
+    }
+
+    @Benchmark
+    public PostDto postViewToDto(Mappers mappers) {
+        return mappers.postMapper.mapToDTO(mappers.postView);
+    }
+
+    @Benchmark
+    public CommentDto commentEntityToDto(Mappers mappers) {
+        return mappers.commentMapper.mapToDTO(mappers.comment);
+    }
+
+    @Benchmark
+    public PostDto modelMapperPostEntityToDto(Mappers mappers, PostEntity postEntity) {
+        return mappers.modelMapper.map(postEntity.post, PostDto.class);
+    }
+
+    @Benchmark
+    public CommentDto modelMapperCommentEntityToDto(Mappers mappers) {
+        return mappers.modelMapper.map(mappers.comment, CommentDto.class);
+    }
+}
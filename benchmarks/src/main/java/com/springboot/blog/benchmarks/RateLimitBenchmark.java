@@ -0,0 +1,136 @@
+package com.springboot.blog.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.springboot.blog.config.RateLimitProperties;
+import com.springboot.blog.security.RateLimitFilter;
+import com.springboot.blog.security.RateLimiter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//Per-request overhead of the rate limiter: RateLimiter.tryAcquire alone, for one client and for clients sharing a bucket,
+//and one request through RateLimitFilter with the routes of application.yml
+//The limits are high enough that every request is allowed, except in rejected(), so the allowed path is what is timed
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class RateLimitBenchmark {
+
+    private static final double UNLIMITED = 1_000_000_000;
+    private static final int BURST = 1_000_000;
+    private static final FilterChain PASS = (request, response) -> {
+    };
+
+    @State(Scope.Benchmark)
+    public static class Limiter {
+
+        private final RateLimiter rateLimiter = new RateLimiter(Duration.ofMinutes(1).toNanos());
+        private final AtomicInteger threads = new AtomicInteger();
+    }
+
+    //one bucket per benchmark thread, the threads only share the map
+    @State(Scope.Thread)
+    public static class Client {
+
+        private String key;
+
+        @Setup(Level.Trial)
+        public void setUp(Limiter limiter) {
+            key = "0:10.0.0." + limiter.threads.incrementAndGet();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Filter {
+
+        private RateLimitFilter filter;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            RateLimitProperties properties = new RateLimitProperties();
+            properties.getDefaultLimit().setPermitsPerSecond(UNLIMITED);
+            properties.getDefaultLimit().setBurst(BURST);
+            properties.setRoutes(List.of(
+                    route(null, "/api/auth/**"),
+                    route("GET", "/api/posts/search"),
+                    route("GET", "/api/posts/export")));
+            filter = new RateLimitFilter(properties, new ObjectMapper());
+        }
+
+        private static RateLimitProperties.Route route(String method, String pattern) {
+            RateLimitProperties.Route route = new RateLimitProperties.Route();
+            route.setMethod(method);
+            route.setPattern(pattern);
+            route.setPermitsPerSecond(UNLIMITED);
+            route.setBurst(BURST);
+            return route;
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public long singleKey(Limiter limiter) {
+        return limiter.rateLimiter.tryAcquire("0:10.0.0.1", UNLIMITED, BURST);
+    }
+
+    //every thread updates the same arrival time, compare-and-set retries included
+    @Benchmark
+    @Threads(4)
+    public long contendedKey(Limiter limiter) {
+        return limiter.rateLimiter.tryAcquire("0:10.0.0.1", UNLIMITED, BURST);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public long keyPerThread(Limiter limiter, Client client) {
+        return limiter.rateLimiter.tryAcquire(client.key, UNLIMITED, BURST);
+    }
+
+    //a client over its limit: the bucket is read, nothing is written
+    @Benchmark
+    @Threads(1)
+    public long rejected(Limiter limiter) {
+        return limiter.rateLimiter.tryAcquire("0:10.0.0.2", 0.001, 1);
+    }
+
+    //no route matches, all three patterns are tried before the default limit applies
+    @Benchmark
+    public Object filterDefaultLimit(Filter filter) throws ServletException, IOException {
+        return filter(filter, "/api/posts");
+    }
+
+    @Benchmark
+    public Object filterMatchedRoute(Filter filter) throws ServletException, IOException {
+        return filter(filter, "/api/posts/search");
+    }
+
+    //a fresh request each call, OncePerRequestFilter skips requests it has already seen
+    private static Object filter(Filter filter, String path) throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+        request.setRemoteAddr("10.0.0.1");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.filter.doFilter(request, response, PASS);
+        return response;
+    }
+}
@@ -0,0 +1,73 @@
+package com.springboot.blog.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+//Load driver for app.virtual-threads.enabled: the same read served on Tomcat's platform thread pool and on virtual threads
+//Every JMH thread is a client with one request in flight, sample mode reports the latency percentiles next to the throughput
+//The difference shows once requests wait on the database: run it against MySQL with more clients than Tomcat threads, e.g.
+//  -t 400 -jvmArgsAppend -Dspring.datasource.url=jdbc:mysql://...
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(64)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class RequestThreadsBenchmark {
+
+    @Param({"false", "true"})
+    private boolean virtualThreads;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private HttpRequest listPosts;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BlogApplication.start("app.virtual-threads.enabled=" + virtualThreads);
+        String port = context.getEnvironment().getRequiredProperty("local.server.port");
+        client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        listPosts = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/posts?page=3&size=10"))
+                .timeout(Duration.ofSeconds(30))
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int listPosts() throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = client.send(listPosts, HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("GET /api/posts answered " + response.statusCode());
+        }
+        return response.body().length;
+    }
+}
@@ -1,7 +1,11 @@
 package com.springboot.blog;
 
 import com.springboot.blog.entity.Role;
+import com.springboot.blog.utils.AppConstants;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.Optional;
 
@@ -9,4 +13,9 @@ public interface RoleRepository extends JpaRepository<Role, Long> {
 
     Optional<Role> findByName(String name);
 
+    //roles are seeded once and never renamed, a missing role is not cached so it can be added without a restart
+    @Cacheable(cacheNames = AppConstants.ROLES_CACHE, unless = "#result == null")
+    @Query("select r.id from Role r where r.name = :name")
+    Optional<Long> findIdByName(@Param("name") String name);
+
 }
\ No newline at end of file
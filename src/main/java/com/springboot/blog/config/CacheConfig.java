@@ -0,0 +1,12 @@
+package com.springboot.blog.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+//Caches are declared and sized in application.yml (spring.cache.*), statistics are published on /actuator/metrics/cache.*
+//The cache advice wraps the transaction advice so evictions happen after commit
+@Configuration
+@EnableCaching(order = Ordered.LOWEST_PRECEDENCE - 1)
+public class CacheConfig {
+}
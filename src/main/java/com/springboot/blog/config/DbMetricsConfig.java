@@ -0,0 +1,54 @@
+package com.springboot.blog.config;
+
+import com.springboot.blog.datasource.StatementCountingListener;
+import com.springboot.blog.datasource.StatementMetricsInterceptor;
+import io.micrometer.core.instrument.MeterRegistry;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+
+//Counts statements, fetched rows and database time per controller handler (db.requests.* on /actuator/prometheus)
+//Only the bean named dataSource is proxied: with a replica configured it routes to both pools, and proxying the pools too would count twice
+@Configuration
+@ConditionalOnProperty(name = "app.db-metrics.enabled", havingValue = "true", matchIfMissing = true)
+public class DbMetricsConfig implements WebMvcConfigurer {
+
+    private final MeterRegistry meterRegistry;
+    private final int statementBudget;
+
+    public DbMetricsConfig(MeterRegistry meterRegistry, @Value("${app.db-metrics.statement-budget:20}") int statementBudget) {
+        this.meterRegistry = meterRegistry;
+        this.statementBudget = statementBudget;
+    }
+
+    //static: post-processors are created before the other beans of this configuration
+    @Bean
+    public static BeanPostProcessor statementCountingDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!"dataSource".equals(beanName) || !(bean instanceof DataSource dataSource)) {
+                    return bean;
+                }
+                StatementCountingListener listener = new StatementCountingListener();
+                return ProxyDataSourceBuilder.create(beanName, dataSource)
+                        .listener(listener)
+                        .proxyResultSet()
+                        .methodListener(listener)
+                        .build();
+            }
+        };
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new StatementMetricsInterceptor(meterRegistry, statementBudget));
+    }
+}
@@ -0,0 +1,43 @@
+package com.springboot.blog.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+//Request limits per client (authenticated username, otherwise remote address), the first matching route wins
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "app.rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+    //applies to requests no route matches
+    private Limit defaultLimit = new Limit();
+    private List<Route> routes = new ArrayList<>();
+    //how often buckets that have refilled completely are dropped
+    private Duration idleEviction = Duration.ofMinutes(1);
+
+    @Getter
+    @Setter
+    public static class Limit {
+        //sustained rate
+        private double permitsPerSecond = 20;
+        //requests allowed at once after a quiet period
+        private int burst = 40;
+    }
+
+    @Getter
+    @Setter
+    public static class Route extends Limit {
+        //any method when empty
+        private String method;
+        //path pattern, e.g. /api/auth/**
+        private String pattern;
+    }
+}
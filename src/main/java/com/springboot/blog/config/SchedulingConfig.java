@@ -0,0 +1,10 @@
+package com.springboot.blog.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+//Background flushes (@Scheduled) run on the single scheduler thread Spring Boot configures (spring.task.scheduling.*)
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
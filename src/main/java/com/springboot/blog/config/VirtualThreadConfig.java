@@ -0,0 +1,51 @@
+package com.springboot.blog.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+
+//Serves each request on its own virtual thread instead of Tomcat's platform thread pool
+//Requests then block on the database without holding an OS thread, the Hikari pool becomes the concurrency limit
+@Configuration
+@ConditionalOnProperty(name = "app.virtual-threads.enabled", havingValue = "true")
+public class VirtualThreadConfig {
+
+    private static final HikariConfig HIKARI_DEFAULTS = new HikariConfig();
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadExecutorCustomizer() {
+        return protocolHandler -> protocolHandler.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+    //Sizes the pools for this mode only: nothing else caps concurrent database work, and an overloaded pool should fail
+    //requests fast instead of queueing them for Hikari's 30s. Runs before initialization, after spring.datasource.hikari.*
+    //and app.datasource.replica.* are bound, and leaves a pool alone where those set their own values
+    @Bean
+    public static BeanPostProcessor virtualThreadPoolPostProcessor(
+            @Value("${app.virtual-threads.maximum-pool-size:20}") int maximumPoolSize,
+            @Value("${app.virtual-threads.connection-timeout:5s}") Duration connectionTimeout) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource pool) {
+                    if (pool.getMaximumPoolSize() == HIKARI_DEFAULTS.getMaximumPoolSize()) {
+                        pool.setMaximumPoolSize(maximumPoolSize);
+                    }
+                    if (pool.getConnectionTimeout() == HIKARI_DEFAULTS.getConnectionTimeout()) {
+                        pool.setConnectionTimeout(connectionTimeout.toMillis());
+                    }
+                }
+                return bean;
+            }
+        };
+    }
+
+}
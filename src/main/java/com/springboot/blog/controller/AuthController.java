@@ -2,22 +2,33 @@ package com.springboot.blog.controller;
 
 import com.springboot.blog.payload.JWTAuthResponse;
 import com.springboot.blog.payload.LoginDto;
+import com.springboot.blog.payload.RefreshTokenDto;
 import com.springboot.blog.payload.RegisterDto;
+import com.springboot.blog.payload.UserProvisioningResponse;
 import com.springboot.blog.service.AuthService;
+import com.springboot.blog.service.UserProvisioningService;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.List;
+
 @RestController
 @RequiredArgsConstructor
 @RequestMapping("/api/auth")
 public class AuthController {
 
     private final AuthService authService;
+    private final UserProvisioningService userProvisioningService;
 
     //Login Rest API
     /* Example request:
@@ -28,11 +39,32 @@ public class AuthController {
      */
     @PostMapping(value = {"/login", "/sign-in"})
     public ResponseEntity<JWTAuthResponse> login(@RequestBody LoginDto loginDto){
-        String token = authService.login(loginDto);
-        JWTAuthResponse jwtAuthResponse = new JWTAuthResponse();
-        jwtAuthResponse.setAccessToken(token);
+        return ResponseEntity.ok(authService.login(loginDto));
+    }
 
-        return ResponseEntity.ok(jwtAuthResponse);
+    //Refresh Rest API, trades a refresh token for a new access and refresh token, the old one stops working
+    /* Example request:
+    http POST http://localhost:8080/api/auth/refresh \
+    Content-Type:application/json \
+    refreshToken="token"
+     */
+    @PostMapping("/refresh")
+    public ResponseEntity<JWTAuthResponse> refresh(@RequestBody RefreshTokenDto refreshTokenDto){
+        return ResponseEntity.ok(authService.refresh(refreshTokenDto.getRefreshToken()));
+    }
+
+    //Logout Rest API, revokes the refresh token and, when sent, the access token
+    /* Example request:
+    http POST http://localhost:8080/api/auth/logout \
+    Content-Type:application/json \
+    Authorization:"Bearer token" \
+    refreshToken="token"
+     */
+    @PostMapping("/logout")
+    public ResponseEntity<String> logout(@RequestBody RefreshTokenDto refreshTokenDto,
+                                         @RequestHeader(name = HttpHeaders.AUTHORIZATION, required = false) String authorization){
+        String accessToken = authorization != null && authorization.startsWith("Bearer ") ? authorization.substring(7) : null;
+        return ResponseEntity.ok(authService.logout(refreshTokenDto.getRefreshToken(), accessToken));
     }
 
     //Register Rest API
@@ -49,5 +81,28 @@ public class AuthController {
         return ResponseEntity.status(HttpStatus.CREATED).body(authService.register(registerDto));
     }
 
+    //Revoke Tokens Rest API, every token issued to the user so far stops working
+    /* Example request:
+    http POST http://localhost:8080/api/auth/users/John_Doe/revoke \
+    Authorization:"Bearer token"
+     */
+    @SecurityRequirement(name = "Bearer Authentication")
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/users/{username}/revoke")
+    public ResponseEntity<String> revokeTokens(@PathVariable(name = "username") String username){
+        return ResponseEntity.ok(authService.revokeTokens(username));
+    }
+
+    //Bulk Register Rest API, creates users with the default role in batches and reports the rejected ones
+    /* Example request:
+    http POST http://localhost:8080/api/auth/users/bulk \
+    Authorization:"Bearer token" < users.json
+     */
+    @SecurityRequirement(name = "Bearer Authentication")
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/users/bulk")
+    public ResponseEntity<UserProvisioningResponse> provisionUsers(@RequestBody List<RegisterDto> users){
+        return ResponseEntity.ok(userProvisioningService.provisionUsers(users));
+    }
 
 }
@@ -1,12 +1,17 @@
 package com.springboot.blog.controller;
 
+import com.springboot.blog.payload.CategoriesVersion;
+import com.springboot.blog.payload.CategoryDeletionStatus;
 import com.springboot.blog.payload.CategoryDto;
 import com.springboot.blog.service.CategoryService;
+import com.springboot.blog.utils.ETags;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.util.List;
 
@@ -15,6 +20,8 @@ import java.util.List;
 @RequestMapping("/api/categories")
 public class CategoryController {
 
+    private static final String CATEGORIES_VERSION_HEADER = "X-Categories-Version";
+
     private final CategoryService categoryService;
 
     //Build Add Category REST API
@@ -38,8 +45,12 @@ public class CategoryController {
      Authorization: Bearer token
      */
     @GetMapping("/{id}")
-    public ResponseEntity<CategoryDto> getCategory(@PathVariable(value = "id") Long categoryId) {
-        return ResponseEntity.status(HttpStatus.OK).body(categoryService.getCategory(categoryId));
+    public ResponseEntity<CategoryDto> getCategory(@PathVariable(value = "id") Long categoryId, WebRequest webRequest) {
+        if (webRequest.checkNotModified(ETags.of(categoryService.getCategoryVersion(categoryId)))) {
+            return null;
+        }
+        CategoryDto category = categoryService.getCategory(categoryId);
+        return ResponseEntity.status(HttpStatus.OK).body(category);
     }
 
     //Build Get All Categories REST API
@@ -49,8 +60,24 @@ public class CategoryController {
      Authorization: Bearer token
      */
     @GetMapping
-    public ResponseEntity<List<CategoryDto>> getAllCategories() {
-        return ResponseEntity.ok(categoryService.getAllCategories());
+    public ResponseEntity<List<CategoryDto>> getAllCategories(WebRequest webRequest) {
+        //read the version first, a concurrent rebuild can then only make the client refetch once more
+        long version = categoryService.getCategoriesVersion();
+        if (webRequest.checkNotModified(ETags.of(version))) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .header(CATEGORIES_VERSION_HEADER, String.valueOf(version))
+                .body(categoryService.getAllCategories());
+    }
+
+    //Build Get Categories Version REST API, lets clients poll for changes without fetching the list
+    /* Example request:
+     http GET http://localhost:8080/api/categories/version
+     */
+    @GetMapping("/version")
+    public ResponseEntity<CategoriesVersion> getCategoriesVersion() {
+        return ResponseEntity.ok(new CategoriesVersion(categoryService.getCategoriesVersion()));
     }
 
     //Build Update Category REST API
@@ -67,7 +94,7 @@ public class CategoryController {
         return ResponseEntity.ok(categoryService.updateCategory(categoryId, categoryDto));
     }
 
-    //Build Delete Category REST API
+    //Build Delete Category REST API, 204 once deleted, or 202 with the job to poll when the category is large
     /* Example request:
      http DELETE http://localhost:8080/api/categories/1 \
      Content-Type:application/json \
@@ -75,8 +102,23 @@ public class CategoryController {
      */
     @PreAuthorize("hasRole('ADMIN')")
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> deleteCategory(@PathVariable(value = "id") Long categoryId) {
-        categoryService.deleteCategory(categoryId);
-        return ResponseEntity.noContent().build();
+    public ResponseEntity<CategoryDeletionStatus> deleteCategory(@PathVariable(value = "id") Long categoryId) {
+        return categoryService.deleteCategory(categoryId)
+                .map(job -> ResponseEntity.accepted()
+                        .location(ServletUriComponentsBuilder.fromCurrentContextPath()
+                                .path("/api/categories/deletions/{id}").build(job.id()))
+                        .body(job))
+                .orElseGet(() -> ResponseEntity.noContent().build());
+    }
+
+    //Build Get Category Deletion REST API, progress of a background category deletion
+    /* Example request:
+     http GET http://localhost:8080/api/categories/deletions/1 \
+     Authorization: Bearer token
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/deletions/{id}")
+    public ResponseEntity<CategoryDeletionStatus> getCategoryDeletion(@PathVariable(value = "id") Long deletionId) {
+        return ResponseEntity.ok(categoryService.getCategoryDeletion(deletionId));
     }
 }
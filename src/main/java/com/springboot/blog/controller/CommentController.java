@@ -1,12 +1,19 @@
 package com.springboot.blog.controller;
 
 import com.springboot.blog.payload.CommentDto;
+import com.springboot.blog.payload.CommentPatchDto;
+import com.springboot.blog.payload.CommentResponse;
+import com.springboot.blog.payload.PatchResponse;
 import com.springboot.blog.service.CommentService;
+import com.springboot.blog.utils.AppConstants;
+import com.springboot.blog.utils.ETags;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -31,13 +38,36 @@ public class CommentController {
         return ResponseEntity.status(HttpStatus.CREATED).body(commentService.createComment(postId, commentDto));
     }
 
-    //Get all comments for a post
+    //Get all comments for a post, the post version is the ETag so a matching If-None-Match never loads the comments
     /* Example request:
     http GET http://localhost:8080/api/post/4/comments
      */
     @GetMapping("/post/{postId}/comments")
-    public List<CommentDto> getCommentsByPostId(@Valid @PathVariable(value = "postId") Long postId){
-        return commentService.getCommentsByPostId(postId);
+    public ResponseEntity<List<CommentDto>> getCommentsByPostId(@Valid @PathVariable(value = "postId") Long postId,
+                                                                WebRequest webRequest){
+        if (isNotModified(postId, webRequest)) {
+            return null;
+        }
+        CommentResponse comments = commentService.getCommentsByPostId(postId);
+        return ResponseEntity.ok().eTag(ETags.of(comments.postVersion())).body(comments.content());
+    }
+
+    //Get a page of comments for a post, by page number or after a comment id taken from "next"
+    /* Example request:
+    http GET http://localhost:8080/api/post/4/comments?size=20&page=0
+    http GET http://localhost:8080/api/post/4/comments?size=20&after=120
+     */
+    @GetMapping(value = "/post/{postId}/comments", params = "size")
+    public ResponseEntity<CommentResponse> getCommentsPageByPostId(@PathVariable(value = "postId") Long postId,
+                                                                   @RequestParam(name = "size") int pageSize,
+                                                                   @RequestParam(name = "page", defaultValue = AppConstants.DEFAULT_PAGE_NUMBER, required = false) int pageNo,
+                                                                   @RequestParam(name = "after", required = false) Long after,
+                                                                   WebRequest webRequest){
+        if (isNotModified(postId, webRequest)) {
+            return null;
+        }
+        CommentResponse comments = commentService.getCommentsByPostId(postId, after, pageNo, pageSize);
+        return ResponseEntity.ok().eTag(ETags.of(comments.postVersion())).body(comments);
     }
 
     //Get a comment for a post by id
@@ -45,9 +75,15 @@ public class CommentController {
     http GET http://localhost:8080/api/post/4/comments/1
      */
     @GetMapping("/post/{postId}/comments/{commentId}")
-    public CommentDto getCommentById(@PathVariable(value = "postId") Long postId,
-                                     @PathVariable(value = "commentId") Long commentId){
-        return commentService.getCommentById(postId, commentId);
+    public ResponseEntity<CommentDto> getCommentById(@PathVariable(value = "postId") Long postId,
+                                                     @PathVariable(value = "commentId") Long commentId,
+                                                     WebRequest webRequest){
+        if (webRequest.getHeader(HttpHeaders.IF_NONE_MATCH) != null
+                && webRequest.checkNotModified(ETags.of(commentService.getCommentVersion(postId, commentId)))) {
+            return null;
+        }
+        CommentDto comment = commentService.getCommentById(postId, commentId);
+        return ResponseEntity.ok().eTag(ETags.of(comment.getVersion())).body(comment);
     }
 
     //Update a comment for a post by id
@@ -65,6 +101,22 @@ public class CommentController {
         return commentService.updateComment(postId, commentId, commentDto);
     }
 
+    //Update some fields of a comment, If-Match carries the comment version the change is based on, or * for any version
+    /* Example request:
+    http PATCH http://localhost:8080/api/post/4/comments/1 \
+    If-Match:'"3"' \
+    Content-Type:application/json \
+    body="This is the new comment body"
+     */
+    @PatchMapping("/post/{postId}/comments/{commentId}")
+    public ResponseEntity<PatchResponse> patchComment(@PathVariable(value = "postId") Long postId,
+                                                      @PathVariable(value = "commentId") Long commentId,
+                                                      @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                                      @Valid @RequestBody CommentPatchDto patch){
+        PatchResponse updated = commentService.patchComment(postId, commentId, ETags.requireVersion(ifMatch), patch);
+        return ResponseEntity.ok().eTag(ETags.of(updated.version())).body(updated);
+    }
+
     //Delete a comment for a post by id
     /* Example request:
     http DELETE http://localhost:8080/api/post/4/comments/1
@@ -76,6 +128,10 @@ public class CommentController {
         return ResponseEntity.ok("Comment successfully deleted");
     }
 
-
+    //only a conditional request pays for the version lookup, the others get the version from the comments query
+    private boolean isNotModified(Long postId, WebRequest webRequest) {
+        return webRequest.getHeader(HttpHeaders.IF_NONE_MATCH) != null
+                && webRequest.checkNotModified(ETags.of(commentService.getCommentsVersion(postId)));
+    }
 
 }
@@ -0,0 +1,41 @@
+package com.springboot.blog.controller;
+
+import com.springboot.blog.payload.CommentDto;
+import com.springboot.blog.payload.CommentReceipt;
+import com.springboot.blog.service.CommentIngestionService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+//Asynchronous comment creation, only requests sending "Prefer: respond-async" land here
+//Everything else keeps the synchronous CommentController.createComment
+@RestController
+@RequestMapping("/api/")
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.comment-ingestion.enabled", havingValue = "true")
+public class CommentIngestionController {
+
+    private static final String RESPOND_ASYNC = "respond-async";
+
+    private final CommentIngestionService commentIngestionService;
+
+    //Queue a new comment for a post, the comment is written by the next batch
+    /* Example request:
+    http POST http://localhost:8080/api/post/1/comments \
+    Prefer:respond-async \
+    Content-Type:application/json \
+    name="John Doe" \
+    email= john@doe.com \
+    body="This is a comment body
+    */
+    @PostMapping(value = "/post/{postId}/comments", headers = "Prefer=" + RESPOND_ASYNC)
+    public ResponseEntity<CommentReceipt> enqueueComment(@PathVariable(value = "postId") Long postId,
+                                                         @Valid @RequestBody CommentDto commentDto){
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .header("Preference-Applied", RESPOND_ASYNC)
+                .body(commentIngestionService.enqueueComment(postId, commentDto));
+    }
+}
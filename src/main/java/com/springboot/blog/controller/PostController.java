@@ -1,21 +1,31 @@
 package com.springboot.blog.controller;
 
+import com.springboot.blog.payload.PatchResponse;
 import com.springboot.blog.payload.PostDto;
+import com.springboot.blog.payload.PostImportResponse;
+import com.springboot.blog.payload.PostPatchDto;
 import com.springboot.blog.payload.PostResponse;
+import com.springboot.blog.service.PostImportService;
 import com.springboot.blog.service.PostService;
 import com.springboot.blog.utils.AppConstants;
+import com.springboot.blog.utils.ETags;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.io.IOException;
 import java.util.List;
 
 @RestController
@@ -25,6 +35,7 @@ import java.util.List;
 public class PostController {
 
     private final PostService postService;
+    private final PostImportService postImportService;
 
     //Create blog post
     /* Example request:
@@ -50,9 +61,12 @@ public class PostController {
     //Get all blog posts providing pagination and sorting
     /* Example request:
      http GET http://localhost:8080/api/posts?page=0&size=10&sort-by=title&sort-dir=asc
+     Cursor mode, start with an empty cursor and then pass the "next" value of the previous response:
+     http GET http://localhost:8080/api/posts?size=10&sort-by=title&sort-dir=asc&after=
      */
     @Operation(summary = "Get all Post REST API",
-            description = "Get all Post REST API is to fetch all posts from the database. It also provides pagination and sorting functionality.")
+            description = "Get all Post REST API is to fetch all posts from the database. It also provides pagination and sorting functionality. " +
+                    "When the after parameter is present it uses cursor pagination and skips the total count.")
     @ApiResponse(responseCode = "200",
             description = "Http Status Success",
             content = @Content(mediaType = "application/json"))
@@ -60,13 +74,17 @@ public class PostController {
     public PostResponse getAllPosts(@RequestParam(name = "page", defaultValue = AppConstants.DEFAULT_PAGE_NUMBER, required = false) int pageNo,
                                     @RequestParam(name = "size", defaultValue = AppConstants.DEFAULT_PAGE_SIZE, required = false) int pageSize,
                                     @RequestParam(name = "sort-by", defaultValue = AppConstants.DEFAULT_SORT_BY, required = false) String sortBy,
-                                    @RequestParam(name = "sort-dir", defaultValue = AppConstants.DEFAULT_SORT_DIRECTION, required = false) String sortDir){
+                                    @RequestParam(name = "sort-dir", defaultValue = AppConstants.DEFAULT_SORT_DIRECTION, required = false) String sortDir,
+                                    @RequestParam(name = "after", required = false) String after){
+        if (after != null) {
+            return postService.getAllPostsAfter(after, pageSize, sortBy, sortDir);
+        }
         return postService.getAllPosts(pageNo, pageSize, sortBy, sortDir);
     }
 
-    //Get blog post by id
+    //Get blog post by id, answers 304 when If-None-Match carries the current version
     /* Example request:
-     http GET http://localhost:8080/api/posts/1
+     http GET http://localhost:8080/api/posts/1 If-None-Match:'"0"'
      */
     @Operation(summary = "Get Post by id REST API",
             description = "Get Post by id REST API is used to retrieve a post by id from the database.")
@@ -74,8 +92,15 @@ public class PostController {
             description = "Http Status Success",
             content = @Content(mediaType = "application/json"))
     @GetMapping("/{id}")
-    public ResponseEntity<PostDto> getPostById(@PathVariable(name = "id") Long id){
-        return ResponseEntity.ok(postService.getPostById(id));
+    public ResponseEntity<PostDto> getPostById(@PathVariable(name = "id") Long id, WebRequest webRequest){
+        //a conditional request is answered from the version alone, the post is only loaded and mapped on a miss
+        if (webRequest.getHeader(HttpHeaders.IF_NONE_MATCH) != null
+                && webRequest.checkNotModified(ETags.of(postService.getPostVersion(id)))) {
+            postService.countView(id);
+            return null;
+        }
+        PostDto post = postService.getPostById(id);
+        return ResponseEntity.ok().eTag(ETags.of(post.getVersion())).body(post);
     }
 
     //Update blog post
@@ -98,6 +123,28 @@ public class PostController {
         return ResponseEntity.ok(postService.updatePost(postDto, id));
     }
 
+    //Update some fields of a blog post, If-Match carries the post version the change is based on, or * for any version
+    /* Example request:
+     http PATCH http://localhost:8080/api/posts/1 \
+     If-Match:'"3"' \
+     Content-Type:application/json \
+     title="My first post renamed"
+     */
+    @Operation(summary = "Patch Post by id REST API",
+            description = "Patch Post by id REST API updates the given fields of a post if its version still matches If-Match, and returns the new version.")
+    @ApiResponse(responseCode = "200",
+            description = "Http Status Success",
+            content = @Content(mediaType = "application/json"))
+    @SecurityRequirement(name = "Bearer Authentication")
+    @PreAuthorize("hasRole('ADMIN')")
+    @PatchMapping("/{id}")
+    public ResponseEntity<PatchResponse> patchPost(@PathVariable(name = "id") Long id,
+                                                   @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                                   @Valid @RequestBody PostPatchDto patch){
+        PatchResponse updated = postService.patchPost(id, ETags.requireVersion(ifMatch), patch);
+        return ResponseEntity.ok().eTag(ETags.of(updated.version())).body(updated);
+    }
+
     //Delete blog post
     /* Example request:
      http DELETE http://localhost:8080/api/posts/1
@@ -115,6 +162,70 @@ public class PostController {
         return ResponseEntity.ok("Post successfully deleted");
     }
 
+    //Search blog posts by title, description and content, best match first
+    /* Example request:
+     http GET http://localhost:8080/api/posts/search?q=spring boot&page=0&size=10
+     */
+    @Operation(summary = "Search Post REST API",
+            description = "Search Post REST API returns the posts matching the query, ranked by relevance, from an in-memory full-text index.")
+    @ApiResponse(responseCode = "200",
+            description = "Http Status Success",
+            content = @Content(mediaType = "application/json"))
+    @GetMapping("/search")
+    public PostResponse searchPosts(@RequestParam(name = "q") String query,
+                                    @RequestParam(name = "page", defaultValue = AppConstants.DEFAULT_PAGE_NUMBER, required = false) int pageNo,
+                                    @RequestParam(name = "size", defaultValue = AppConstants.DEFAULT_PAGE_SIZE, required = false) int pageSize){
+        return postService.searchPosts(query, pageNo, pageSize);
+    }
+
+    //Export every post with its comments as NDJSON, streamed straight to the response
+    /* Example request:
+     http GET http://localhost:8080/api/posts/export Authorization:"Bearer token"
+     */
+    @Operation(summary = "Export Posts REST API",
+            description = "Export Posts REST API streams every post with its category id and comments, one JSON document per line.")
+    @ApiResponse(responseCode = "200",
+            description = "Http Status Success",
+            content = @Content(mediaType = "application/x-ndjson"))
+    @SecurityRequirement(name = "Bearer Authentication")
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/export")
+    public void exportPosts(HttpServletResponse response) throws IOException {
+        response.setContentType("application/x-ndjson");
+        postService.exportPosts(response.getOutputStream());
+    }
+
+    //Import a JSON array of posts with their comments, inserted in batches
+    /* Example request:
+     http POST http://localhost:8080/api/posts/import Authorization:"Bearer token" < posts.json
+     */
+    @Operation(summary = "Import Posts REST API",
+            description = "Import Posts REST API inserts a JSON array of posts and their comments in batches and reports the rejected items.")
+    @ApiResponse(responseCode = "200",
+            description = "Http Status Success",
+            content = @Content(mediaType = "application/json"))
+    @SecurityRequirement(name = "Bearer Authentication")
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping(value = "/import", consumes = "application/json")
+    public PostImportResponse importPosts(HttpServletRequest request) throws IOException {
+        return postImportService.importPosts(request.getInputStream());
+    }
+
+    //Get the most viewed blog posts, most views first
+    /* Example request:
+     http GET http://localhost:8080/api/posts/most-viewed?size=10
+     */
+    @Operation(summary = "Get Most Viewed Posts REST API",
+            description = "Get Most Viewed Posts REST API returns the posts with the highest view counts.")
+    @ApiResponse(responseCode = "200",
+            description = "Http Status Success",
+            content = @Content(mediaType = "application/json"))
+    @GetMapping("/most-viewed")
+    public ResponseEntity<List<PostDto>> getMostViewedPosts(
+            @RequestParam(name = "size", defaultValue = AppConstants.DEFAULT_PAGE_SIZE, required = false) int size){
+        return ResponseEntity.ok(postService.getMostViewedPosts(size));
+    }
+
     //Get all blog post by category id
     /* Example request:
      http GET http://localhost:8080/api/posts/category/1
@@ -0,0 +1,25 @@
+package com.springboot.blog.datasource;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.transaction.annotation.Transactional;
+
+//Only read-only @Service methods may use the replica: Spring Data runs findById and friends in read-only transactions too,
+//and a read-modify-write flow (load, change, save) must load from the primary or it would work on a stale row
+@Aspect
+public class ReadOnlyServiceRouting {
+
+    @Around("@within(org.springframework.stereotype.Service) && @annotation(transactional)")
+    public Object route(ProceedingJoinPoint joinPoint, Transactional transactional) throws Throwable {
+        if (!transactional.readOnly()) {
+            return joinPoint.proceed();
+        }
+        Boolean previous = ReplicaRoutingDataSource.allowReplica(Boolean.TRUE);
+        try {
+            return joinPoint.proceed();
+        } finally {
+            ReplicaRoutingDataSource.allowReplica(previous);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.springboot.blog.datasource;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.springboot.blog.utils.ClientKeys;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Set;
+
+//A client that sent a write reads from the primary until the window passes, so it never sees the replica lag behind itself
+//Registered after the security filter chain, authenticated clients are tracked by username
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    private static final Set<String> SAFE_METHODS = Set.of("GET", "HEAD", "OPTIONS", "TRACE");
+
+    private final Cache<String, Boolean> recentWriters;
+
+    public ReadYourWritesFilter(Duration window, long maximumSize) {
+        this.recentWriters = Caffeine.newBuilder()
+                .expireAfterWrite(window)
+                .maximumSize(maximumSize)
+                .build();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        String client = ClientKeys.of(request);
+        boolean write = !SAFE_METHODS.contains(request.getMethod());
+        if (write) {
+            recentWriters.put(client, Boolean.TRUE);
+        }
+        ReplicaRoutingDataSource.pinToPrimary(write || recentWriters.getIfPresent(client) != null);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            ReplicaRoutingDataSource.pinToPrimary(false);
+            if (write) {
+                //the window starts again once the write is committed
+                recentWriters.put(client, Boolean.TRUE);
+            }
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.springboot.blog.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+//Sends read-only service transactions to the replica pool, everything else to the primary
+//Wrapped in a LazyConnectionDataSourceProxy: the pool is picked at the first statement, once the transaction is read-only
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    public static final String PRIMARY = "primary";
+    public static final String REPLICA = "replica";
+
+    //set for the duration of a read-only @Service method, unless the client has to read its own writes
+    private static final ThreadLocal<Boolean> replicaAllowed = new ThreadLocal<>();
+    //set for requests of clients that wrote within the read-your-writes window
+    private static final ThreadLocal<Boolean> primaryPinned = new ThreadLocal<>();
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        //the read-only check keeps a write transaction opened inside a read-only method (REQUIRES_NEW) on the primary
+        return Boolean.TRUE.equals(replicaAllowed.get()) && !Boolean.TRUE.equals(primaryPinned.get())
+                && TransactionSynchronizationManager.isCurrentTransactionReadOnly() ? REPLICA : PRIMARY;
+    }
+
+    //returns the previous value for the caller to restore
+    static Boolean allowReplica(Boolean allowed) {
+        Boolean previous = replicaAllowed.get();
+        set(replicaAllowed, allowed);
+        return previous;
+    }
+
+    static void pinToPrimary(boolean pinned) {
+        set(primaryPinned, pinned ? Boolean.TRUE : null);
+    }
+
+    private static void set(ThreadLocal<Boolean> flag, Boolean value) {
+        if (value == null) {
+            flag.remove();
+        } else {
+            flag.set(value);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.springboot.blog.datasource;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+//Statements, fetched rows and database time of the request running on the current thread
+//Only threads serving a request carry one, work of background threads (flushers, scheduled jobs) is not counted
+//propagate() shares one instance with other threads, so the counters are adders; a task still running after the
+//request completed (cancelled, timed out) adds to counters nobody reads anymore
+public final class RequestStatementStats {
+
+    private static final ThreadLocal<RequestStatementStats> current = new ThreadLocal<>();
+    //the start mark of the current JDBC call belongs to the thread making it, not to the request
+    private static final ThreadLocal<long[]> callStartedAt = ThreadLocal.withInitial(() -> new long[1]);
+
+    private final LongAdder statements = new LongAdder();
+    private final LongAdder rows = new LongAdder();
+    private final LongAdder nanos = new LongAdder();
+
+    private RequestStatementStats() {
+    }
+
+    public static RequestStatementStats start() {
+        RequestStatementStats stats = new RequestStatementStats();
+        current.set(stats);
+        return stats;
+    }
+
+    public static void clear() {
+        current.remove();
+    }
+
+    static RequestStatementStats current() {
+        return current.get();
+    }
+
+    //for work the request hands to another thread and waits for, the statements still belong to the request
+    public static <T> Supplier<T> propagate(Supplier<T> task) {
+        RequestStatementStats stats = current.get();
+        if (stats == null) {
+            return task;
+        }
+        return () -> {
+            current.set(stats);
+            try {
+                return task.get();
+            } finally {
+                current.remove();
+            }
+        };
+    }
+
+    public int getStatements() {
+        return statements.intValue();
+    }
+
+    public long getRows() {
+        return rows.sum();
+    }
+
+    public long getNanos() {
+        return nanos.sum();
+    }
+
+    //JDBC calls of one thread never overlap, a single start mark per thread is enough
+    void callStarted() {
+        callStartedAt.get()[0] = System.nanoTime();
+    }
+
+    void callFinished() {
+        nanos.add(System.nanoTime() - callStartedAt.get()[0]);
+    }
+
+    void statementExecuted() {
+        statements.increment();
+    }
+
+    void rowFetched() {
+        rows.increment();
+    }
+}
@@ -0,0 +1,56 @@
+package com.springboot.blog.datasource;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.MethodExecutionContext;
+import net.ttddyy.dsproxy.listener.MethodExecutionListener;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+
+import java.sql.ResultSet;
+import java.util.List;
+
+//Feeds the RequestStatementStats of the calling thread from the datasource proxy
+//A JDBC batch counts as one statement (one round trip), ResultSet.next() calls returning true count the fetched rows,
+//time spent in next() is database time too: with cursor fetches it is where the rows are read
+public class StatementCountingListener implements QueryExecutionListener, MethodExecutionListener {
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        RequestStatementStats stats = RequestStatementStats.current();
+        if (stats != null) {
+            stats.callStarted();
+        }
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        RequestStatementStats stats = RequestStatementStats.current();
+        if (stats != null) {
+            stats.callFinished();
+            stats.statementExecuted();
+        }
+    }
+
+    @Override
+    public void beforeMethod(MethodExecutionContext executionContext) {
+        RequestStatementStats stats = RequestStatementStats.current();
+        if (stats != null && isNext(executionContext)) {
+            stats.callStarted();
+        }
+    }
+
+    @Override
+    public void afterMethod(MethodExecutionContext executionContext) {
+        RequestStatementStats stats = RequestStatementStats.current();
+        if (stats != null && isNext(executionContext)) {
+            stats.callFinished();
+            if (Boolean.TRUE.equals(executionContext.getResult())) {
+                stats.rowFetched();
+            }
+        }
+    }
+
+    private static boolean isNext(MethodExecutionContext executionContext) {
+        return executionContext.getTarget() instanceof ResultSet && "next".equals(executionContext.getMethod().getName());
+    }
+}
@@ -0,0 +1,70 @@
+package com.springboot.blog.datasource;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.util.concurrent.TimeUnit;
+
+//Records the statements, fetched rows and database time of each controller call, tagged with its handler (PostController.getAllPosts)
+//Requests over the statement budget are logged, they are the N+1 suspects
+@Slf4j
+public class StatementMetricsInterceptor implements HandlerInterceptor {
+
+    private final MeterRegistry meterRegistry;
+    private final int statementBudget;
+
+    public StatementMetricsInterceptor(MeterRegistry meterRegistry, int statementBudget) {
+        this.meterRegistry = meterRegistry;
+        this.statementBudget = statementBudget;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (handler instanceof HandlerMethod) {
+            RequestStatementStats.start();
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        RequestStatementStats stats = RequestStatementStats.current();
+        if (stats == null || !(handler instanceof HandlerMethod handlerMethod)) {
+            return;
+        }
+        RequestStatementStats.clear();
+        String name = handlerMethod.getBeanType().getSimpleName() + "." + handlerMethod.getMethod().getName();
+        DistributionSummary.builder("db.requests.statements")
+                .description("JDBC statements executed per request")
+                .tag("handler", name)
+                .publishPercentileHistogram()
+                //bounds the bucket count, the histogram would otherwise run up to Long.MAX_VALUE
+                .maximumExpectedValue(1_000.0)
+                .register(meterRegistry)
+                .record(stats.getStatements());
+        DistributionSummary.builder("db.requests.rows")
+                .description("Rows fetched per request")
+                .tag("handler", name)
+                .publishPercentileHistogram()
+                .maximumExpectedValue(100_000.0)
+                .register(meterRegistry)
+                .record(stats.getRows());
+        Timer.builder("db.requests.time")
+                .description("Time spent in the database per request")
+                .tag("handler", name)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(stats.getNanos(), TimeUnit.NANOSECONDS);
+        if (stats.getStatements() > statementBudget) {
+            log.warn("{} {} ran {} statements (budget {}), fetched {} rows in {} ms, handler {}",
+                    request.getMethod(), request.getRequestURI(), stats.getStatements(), statementBudget,
+                    stats.getRows(), TimeUnit.NANOSECONDS.toMillis(stats.getNanos()), name);
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.springboot.blog.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.util.HashSet;
 import java.util.Set;
@@ -14,7 +15,8 @@ import java.util.Set;
 @Entity
 @Table(
         name = "posts",
-        uniqueConstraints = {@UniqueConstraint(columnNames = {"title"})}
+        uniqueConstraints = {@UniqueConstraint(columnNames = {"title"})},
+        indexes = {@Index(name = "idx_posts_view_count", columnList = "view_count")}
 )
 public class Post {
 
@@ -32,4 +34,12 @@ public class Post {
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "category_id", nullable = false)
     private Category category;
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "version", nullable = false)
+    private Long version;
+    //written only by the batched view counter flush, never by entity updates
+    @ColumnDefault("0")
+    @Column(name = "view_count", nullable = false, insertable = false, updatable = false)
+    private long viewCount;
 }
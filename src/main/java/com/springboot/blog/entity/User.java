@@ -2,6 +2,7 @@ package com.springboot.blog.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.util.Set;
 
@@ -30,5 +31,10 @@ public class User {
             joinColumns = @JoinColumn(name = "user_id",referencedColumnName = "id"),
             inverseJoinColumns = @JoinColumn(name = "role_id",referencedColumnName = "id"))
     private Set<Role> roles;
+    //embedded in every issued JWT as the "ver" claim, incrementing it revokes all outstanding tokens
+    @Builder.Default
+    @ColumnDefault("0")
+    @Column(name = "token_version", nullable = false)
+    private Long tokenVersion = 0L;
 
 }
\ No newline at end of file
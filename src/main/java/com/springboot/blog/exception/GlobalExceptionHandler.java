@@ -36,7 +36,7 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
         ErrorDetails errorDetails = new ErrorDetails(LocalDateTime.now(),
                                                     exception.getMessage(),
                                                     request.getDescription(false));
-        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorDetails);
+        return ResponseEntity.status(exception.getStatus()).body(errorDetails);
     }
     //handle global exceptions
     @ExceptionHandler(Exception.class)
@@ -0,0 +1,19 @@
+package com.springboot.blog.mapper;
+
+import com.springboot.blog.entity.Category;
+import com.springboot.blog.payload.CategoryDto;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+@Mapper(componentModel = "spring")
+public interface CategoryMapper {
+
+    CategoryDto mapToDTO(Category category);
+
+    //ids and versions are managed by the database, never taken from the request
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "version", ignore = true)
+    @Mapping(target = "posts", ignore = true)
+    Category mapToEntity(CategoryDto categoryDto);
+
+}
@@ -0,0 +1,25 @@
+package com.springboot.blog.mapper;
+
+import com.springboot.blog.entity.Comment;
+import com.springboot.blog.payload.CommentDto;
+import com.springboot.blog.repository.projection.CommentView;
+import com.springboot.blog.repository.projection.PostCommentView;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+@Mapper(componentModel = "spring")
+public interface CommentMapper {
+
+    CommentDto mapToDTO(Comment comment);
+
+    CommentDto mapToDTO(CommentView comment);
+
+    CommentDto mapToDTO(PostCommentView comment);
+
+    //ids and versions are managed by the database, never taken from the request
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "version", ignore = true)
+    @Mapping(target = "post", ignore = true)
+    Comment mapToEntity(CommentDto commentDto);
+
+}
@@ -0,0 +1,27 @@
+package com.springboot.blog.mapper;
+
+import com.springboot.blog.entity.Post;
+import com.springboot.blog.payload.PostDto;
+import com.springboot.blog.repository.projection.PostView;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+@Mapper(componentModel = "spring", uses = CommentMapper.class)
+public interface PostMapper {
+
+    @Mapping(target = "categoryId", source = "category.id")
+    PostDto mapToDTO(Post post);
+
+    //comments are loaded separately for a whole page and attached by the caller
+    @Mapping(target = "comments", ignore = true)
+    PostDto mapToDTO(PostView post);
+
+    //ids, versions and view counts are managed by the database, never taken from the request
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "version", ignore = true)
+    @Mapping(target = "viewCount", ignore = true)
+    @Mapping(target = "comments", ignore = true)
+    @Mapping(target = "category", ignore = true)
+    Post mapToEntity(PostDto postDto);
+
+}
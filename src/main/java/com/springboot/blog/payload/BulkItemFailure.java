@@ -0,0 +1,5 @@
+package com.springboot.blog.payload;
+
+//A rejected item of a bulk request, index is its position in the submitted array
+public record BulkItemFailure(long index, String key, String message) {
+}
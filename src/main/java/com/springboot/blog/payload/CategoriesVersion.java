@@ -0,0 +1,4 @@
+package com.springboot.blog.payload;
+
+public record CategoriesVersion(long version) {
+}
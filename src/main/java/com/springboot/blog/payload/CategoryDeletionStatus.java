@@ -0,0 +1,23 @@
+package com.springboot.blog.payload;
+
+import lombok.Builder;
+
+import java.time.Instant;
+
+//Progress of a background category deletion, polled at /api/categories/deletions/{id}
+@Builder
+public record CategoryDeletionStatus(
+        long id,
+        long categoryId,
+        State state,
+        long postsTotal,
+        long postsDeleted,
+        Instant startedAt,
+        Instant finishedAt,
+        String error
+) {
+
+    public enum State {
+        RUNNING, COMPLETED, FAILED
+    }
+}
@@ -11,4 +11,5 @@ public class CategoryDto {
     private Long id;
     private String name;
     private String description;
+    private Long version;
 }
@@ -20,4 +20,5 @@ public final class CommentDto {
     @NotEmpty(message = "Body is required")
     @Size(min = 10, message = "Body must be at least 10 characters")
     private String body;
+    private Long version;
 }
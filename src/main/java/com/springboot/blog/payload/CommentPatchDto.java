@@ -0,0 +1,25 @@
+package com.springboot.blog.payload;
+
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+//Partial comment update, a null field is left unchanged
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+public class CommentPatchDto {
+    @Size(min = 1, message = "Name is required")
+    private String name;
+    @Size(min = 1, message = "Email is required")
+    @Email(message = "Email is invalid")
+    private String email;
+    @Size(min = 10, message = "Body must be at least 10 characters")
+    private String body;
+
+    public boolean isEmpty() {
+        return name == null && email == null && body == null;
+    }
+}
@@ -0,0 +1,5 @@
+package com.springboot.blog.payload;
+
+//Answer to a queued comment: the comment is not stored yet, provisionalId identifies the submission until it is
+public record CommentReceipt(String provisionalId, long postId, CommentDto comment) {
+}
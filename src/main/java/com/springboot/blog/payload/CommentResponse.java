@@ -0,0 +1,19 @@
+package com.springboot.blog.payload;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Builder;
+
+import java.util.List;
+
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record CommentResponse(
+        List<CommentDto> content,
+        Integer page,
+        Integer size,
+        boolean last,
+        String next,
+        @JsonIgnore long postVersion
+) {
+}
@@ -12,6 +12,7 @@ import lombok.Setter;
 public class JWTAuthResponse {
 
     private String accessToken;
+    private String refreshToken;
     private String tokenType = "Bearer";
 
 }
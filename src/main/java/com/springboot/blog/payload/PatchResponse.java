@@ -0,0 +1,8 @@
+package com.springboot.blog.payload;
+
+//Answer to a PATCH: the updated resource and its new version, also sent as the ETag
+public record PatchResponse(
+        long id,
+        long version
+) {
+}
@@ -32,4 +32,8 @@ public final class PostDto {
     private Set<CommentDto> comments;
     @Schema(name = "Category", description = "Category of the post", example = "1")
     private Long categoryId;
+    @Schema(name = "Version", description = "Version of the post, also sent as the ETag", accessMode = Schema.AccessMode.READ_ONLY)
+    private Long version;
+    @Schema(name = "View count", description = "Number of times the post was read", accessMode = Schema.AccessMode.READ_ONLY)
+    private Long viewCount;
 }
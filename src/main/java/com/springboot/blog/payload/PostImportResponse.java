@@ -0,0 +1,15 @@
+package com.springboot.blog.payload;
+
+import lombok.Builder;
+
+import java.util.List;
+
+@Builder
+public record PostImportResponse(
+        long received,
+        long imported,
+        long commentsImported,
+        long failed,
+        List<BulkItemFailure> failures
+) {
+}
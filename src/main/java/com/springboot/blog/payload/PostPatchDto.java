@@ -0,0 +1,34 @@
+package com.springboot.blog.payload;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+//Partial post update, a null field is left unchanged
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Schema(name = "PostPatch", description = "Partial post update, omitted fields are left unchanged")
+public class PostPatchDto {
+
+    @Schema(name = "Title", description = "Title of the post", example = "Post title")
+    @Size(min = 2, message = "Title should be at least 2 characters long")
+    private String title;
+
+    @Schema(name = "Description", description = "Description of the post", example = "Post description")
+    @Size(min = 10, message = "Description should be at least 10 characters long")
+    private String description;
+
+    @Schema(name = "Content", description = "Content of the post", example = "Post content")
+    @Size(min = 1, message = "Content should not be empty")
+    private String content;
+
+    @Schema(name = "Category", description = "Category of the post", example = "1")
+    private Long categoryId;
+
+    public boolean isEmpty() {
+        return title == null && description == null && content == null && categoryId == null;
+    }
+}
@@ -0,0 +1,14 @@
+package com.springboot.blog.payload;
+
+import lombok.Builder;
+
+import java.util.List;
+
+@Builder
+public record UserProvisioningResponse(
+        long received,
+        long created,
+        long failed,
+        List<BulkItemFailure> failures
+) {
+}
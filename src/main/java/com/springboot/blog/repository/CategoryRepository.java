@@ -1,7 +1,32 @@
 package com.springboot.blog.repository;
 
 import com.springboot.blog.entity.Category;
+import com.springboot.blog.payload.CategoryDto;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
 
 public interface CategoryRepository extends JpaRepository<Category, Long> {
-}
\ No newline at end of file
+
+    //selects the columns straight into DTOs, the posts collection is never touched
+    @Query("select new com.springboot.blog.payload.CategoryDto(c.id, c.name, c.description, c.version) from Category c order by c.id")
+    List<CategoryDto> findAllDtos();
+
+    @Query("select c.id from Category c where c.id in :ids")
+    Set<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    //locks the category row, a post inserted into it concurrently waits for the delete
+    @Modifying
+    @Query("update Category c set c.version = c.version + 1 where c.id = :id")
+    int incrementVersion(@Param("id") Long id);
+
+    @Modifying
+    @Query("delete from Category c where c.id = :id")
+    int deleteByIdInBulk(@Param("id") Long id);
+
+}
@@ -1,12 +1,46 @@
 package com.springboot.blog.repository;
 
 import com.springboot.blog.entity.Comment;
+import com.springboot.blog.repository.projection.CommentView;
+import com.springboot.blog.repository.projection.PostCommentView;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface CommentRepository extends JpaRepository<Comment, Long> {
 
     List<Comment> findByPostId(Long postId);
 
+    //comments of a whole page of posts in one statement
+    @Query("select new com.springboot.blog.repository.projection.CommentView(c.post.id, c.id, c.name, c.email, c.body, c.version) " +
+            "from Comment c where c.post.id in :postIds order by c.id")
+    List<CommentView> findViewsByPostIdIn(@Param("postIds") Collection<Long> postIds);
+
+    //one statement answers both "does the post exist" and "which comments follow the cursor", walking idx_comments_post_id_id
+    @Query("select new com.springboot.blog.repository.projection.PostCommentView(p.version, c.id, c.name, c.email, c.body, c.version) " +
+            "from Post p left join p.comments c on c.id > :after where p.id = :postId order by c.id")
+    Slice<PostCommentView> findPostCommentsAfter(@Param("postId") Long postId, @Param("after") Long after, Pageable pageable);
+
+    @Modifying
+    @Query("delete from Comment c where c.post.id in :postIds")
+    int deleteAllByPostIdIn(@Param("postIds") Collection<Long> postIds);
+
+    @Query("select c.version from Comment c where c.id = :commentId and c.post.id = :postId")
+    Optional<Long> findVersion(@Param("postId") Long postId, @Param("commentId") Long commentId);
+
+    //null parameters keep the current value, 0 when the comment is gone, belongs to another post or the version moved on
+    @Modifying
+    @Query("update Comment c set c.name = coalesce(:name, c.name), c.email = coalesce(:email, c.email), " +
+            "c.body = coalesce(:body, c.body), c.version = c.version + 1 " +
+            "where c.id = :commentId and c.post.id = :postId and c.version = :version")
+    int patchComment(@Param("postId") Long postId, @Param("commentId") Long commentId, @Param("version") Long version,
+                     @Param("name") String name, @Param("email") String email, @Param("body") String body);
+
 }
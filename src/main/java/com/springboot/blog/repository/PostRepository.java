@@ -1,12 +1,95 @@
 package com.springboot.blog.repository;
 
 import com.springboot.blog.entity.Post;
+import com.springboot.blog.repository.projection.PostExportRow;
+import com.springboot.blog.repository.projection.PostView;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
-public interface PostRepository extends JpaRepository<Post,Long> {
+public interface PostRepository extends JpaRepository<Post,Long>, PostRepositoryCustom {
 
     List<Post> findByCategoryId(Long id);
 
+    @Query(value = "select new com.springboot.blog.repository.projection.PostView(p.id, p.title, p.description, p.content, p.category.id, p.version, p.viewCount) from Post p",
+            countQuery = "select count(p) from Post p")
+    Page<PostView> findAllViews(Pageable pageable);
+
+    @Query("select new com.springboot.blog.repository.projection.PostView(p.id, p.title, p.description, p.content, p.category.id, p.version, p.viewCount) " +
+            "from Post p where p.id = :id")
+    Optional<PostView> findViewById(@Param("id") Long id);
+
+    @Query("select new com.springboot.blog.repository.projection.PostView(p.id, p.title, p.description, p.content, p.category.id, p.version, p.viewCount) " +
+            "from Post p where p.category.id = :categoryId")
+    List<PostView> findViewsByCategoryId(@Param("categoryId") Long categoryId);
+
+    @Query("select new com.springboot.blog.repository.projection.PostView(p.id, p.title, p.description, p.content, p.category.id, p.version, p.viewCount) " +
+            "from Post p where p.id in :ids")
+    List<PostView> findViewsByIdIn(@Param("ids") Collection<Long> ids);
+
+    //a backward scan of idx_posts_view_count, InnoDB secondary indexes end with the primary key so both columns descend
+    //ties are listed newest first, only the requested page of rows is read
+    @Query("select new com.springboot.blog.repository.projection.PostView(p.id, p.title, p.description, p.content, p.category.id, p.version, p.viewCount) " +
+            "from Post p order by p.viewCount desc, p.id desc")
+    List<PostView> findMostViewed(Pageable pageable);
+
+    @Query("select p.id from Post p where p.category.id = :categoryId")
+    List<Long> findIdsByCategoryId(@Param("categoryId") Long categoryId);
+
+    @Query("select p.id from Post p where p.category.id = :categoryId order by p.id")
+    List<Long> findIdsByCategoryId(@Param("categoryId") Long categoryId, Pageable pageable);
+
+    long countByCategoryId(Long categoryId);
+
+    @Query("select p.id from Post p where p.id in :ids")
+    Set<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    //rows arrive grouped by post; the fetch size makes the driver stream them instead of buffering the whole table
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select new com.springboot.blog.repository.projection.PostExportRow(p.id, p.title, p.description, p.content, p.category.id, p.version, p.viewCount, " +
+            "c.id, c.name, c.email, c.body, c.version) from Post p left join p.comments c order by p.id, c.id")
+    Stream<PostExportRow> streamAllForExport();
+
+    @Query("select p.version from Post p where p.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    boolean existsByTitleAndIdNot(String title, Long id);
+
+    //a post's comments are part of its representation, so comment writes bump the post version
+    @Transactional
+    @Modifying
+    @Query("update Post p set p.version = p.version + 1 where p.id = :id")
+    int incrementVersion(@Param("id") Long id);
+
+    //set-based deletes lock the posts first: a comment written concurrently waits instead of breaking the foreign key
+    @Modifying
+    @Query("update Post p set p.version = p.version + 1 where p.id in :ids")
+    int incrementVersions(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("update Post p set p.version = p.version + 1 where p.category.id = :categoryId")
+    int incrementVersionsByCategoryId(@Param("categoryId") Long categoryId);
+
+    //bulk deletes skip the entity cascades, the caller deletes the comments first
+    @Modifying
+    @Query("delete from Post p where p.id in :ids")
+    int deleteAllByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("delete from Post p where p.category.id = :categoryId")
+    int deleteAllByCategoryId(@Param("categoryId") Long categoryId);
+
 }
@@ -0,0 +1,17 @@
+package com.springboot.blog.repository;
+
+import com.springboot.blog.repository.projection.PostView;
+import com.springboot.blog.utils.PostCursor;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+
+public interface PostRepositoryCustom {
+
+    //keyset page: no OFFSET scan and no COUNT query
+    List<PostView> findPostsAfter(String sortBy, Sort.Direction direction, PostCursor after, int limit);
+
+    //sets the non-null fields and bumps the version in one statement, 0 when the post is gone or the version moved on
+    int patchPost(long postId, long expectedVersion, String title, String description, String content, Long categoryId);
+
+}
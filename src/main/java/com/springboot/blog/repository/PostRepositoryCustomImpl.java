@@ -0,0 +1,102 @@
+package com.springboot.blog.repository;
+
+import com.springboot.blog.entity.Category;
+import com.springboot.blog.entity.Post;
+import com.springboot.blog.repository.projection.PostView;
+import com.springboot.blog.utils.PostCursor;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+class PostRepositoryCustomImpl implements PostRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<PostView> findPostsAfter(String sortBy, Sort.Direction direction, PostCursor after, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<PostView> query = cb.createQuery(PostView.class);
+        Root<Post> post = query.from(Post.class);
+        query.select(cb.construct(PostView.class,
+                post.get("id"),
+                post.get("title"),
+                post.get("description"),
+                post.get("content"),
+                post.get("category").get("id"),
+                post.get("version"),
+                post.get("viewCount")));
+        Path<Comparable<Object>> sortKey = post.get(sortBy);
+        Path<Comparable<Object>> id = post.get("id");
+        boolean ascending = direction.isAscending();
+
+        if (after != null) {
+            Comparable<Object> lastId = comparable(after.id());
+            Predicate afterId = ascending ? cb.greaterThan(id, lastId) : cb.lessThan(id, lastId);
+            if ("id".equals(sortBy)) {
+                query.where(afterId);
+            } else {
+                Comparable<Object> lastValue = toSortValue(sortKey.getJavaType(), after.sortValue());
+                Predicate afterValue = ascending ? cb.greaterThan(sortKey, lastValue) : cb.lessThan(sortKey, lastValue);
+                query.where(cb.or(afterValue, cb.and(cb.equal(sortKey, lastValue), afterId)));
+            }
+        }
+
+        if ("id".equals(sortBy)) {
+            query.orderBy(ascending ? cb.asc(id) : cb.desc(id));
+        } else {
+            query.orderBy(ascending ? cb.asc(sortKey) : cb.desc(sortKey),
+                    ascending ? cb.asc(id) : cb.desc(id));
+        }
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @Override
+    @Transactional
+    public int patchPost(long postId, long expectedVersion, String title, String description, String content, Long categoryId) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<Post> update = cb.createCriteriaUpdate(Post.class);
+        Root<Post> post = update.from(Post.class);
+        if (title != null) {
+            update.set(post.<String>get("title"), title);
+        }
+        if (description != null) {
+            update.set(post.<String>get("description"), description);
+        }
+        if (content != null) {
+            update.set(post.<String>get("content"), content);
+        }
+        if (categoryId != null) {
+            //a reference only supplies the foreign key, the category is not loaded
+            update.set(post.<Category>get("category"), entityManager.getReference(Category.class, categoryId));
+        }
+        Path<Long> version = post.get("version");
+        update.set(version, cb.sum(version, 1L));
+        update.where(cb.equal(post.get("id"), postId), cb.equal(version, expectedVersion));
+        return entityManager.createQuery(update).executeUpdate();
+    }
+
+    private static Comparable<Object> toSortValue(Class<?> type, String value) {
+        if (type == Long.class) {
+            return comparable(Long.valueOf(value));
+        }
+        return comparable(value);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Comparable<Object> comparable(Object value) {
+        return (Comparable<Object>) value;
+    }
+}
@@ -1,8 +1,14 @@
 package com.springboot.blog.repository;
 
 import com.springboot.blog.entity.User;
+import com.springboot.blog.repository.projection.UserTokenVersion;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository <User, Long> {
@@ -13,6 +19,15 @@ public interface UserRepository extends JpaRepository <User, Long> {
     Boolean existsByUsername(String username);
     Boolean existsByEmail(String email);
 
+    @Query("select new com.springboot.blog.repository.projection.UserTokenVersion(u.username, u.tokenVersion) from User u")
+    List<UserTokenVersion> findAllTokenVersions();
 
+    @Query("select u.tokenVersion from User u where u.username = :username")
+    Optional<Long> findTokenVersionByUsername(@Param("username") String username);
+
+    @Transactional
+    @Modifying
+    @Query("update User u set u.tokenVersion = u.tokenVersion + 1 where u.username = :username")
+    int incrementTokenVersion(@Param("username") String username);
 
 }
@@ -0,0 +1,12 @@
+package com.springboot.blog.repository.projection;
+
+//Read-only comment row, postId comes from the foreign key column so the post is never loaded
+public record CommentView(
+        Long postId,
+        Long id,
+        String name,
+        String email,
+        String body,
+        Long version
+) {
+}
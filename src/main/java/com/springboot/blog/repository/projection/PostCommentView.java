@@ -0,0 +1,12 @@
+package com.springboot.blog.repository.projection;
+
+//Comment row joined from its post: the post version is always set, the comment columns are null for a post without comments
+public record PostCommentView(
+        Long postVersion,
+        Long id,
+        String name,
+        String email,
+        String body,
+        Long version
+) {
+}
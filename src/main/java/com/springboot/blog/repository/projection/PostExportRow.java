@@ -0,0 +1,18 @@
+package com.springboot.blog.repository.projection;
+
+//One post/comment pair of the export join, the comment columns are null for a post without comments
+public record PostExportRow(
+        Long id,
+        String title,
+        String description,
+        String content,
+        Long categoryId,
+        Long version,
+        Long viewCount,
+        Long commentId,
+        String commentName,
+        String commentEmail,
+        String commentBody,
+        Long commentVersion
+) {
+}
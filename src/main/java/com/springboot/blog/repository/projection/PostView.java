@@ -0,0 +1,13 @@
+package com.springboot.blog.repository.projection;
+
+//Read-only post row, categoryId comes from the foreign key column so the category is never loaded
+public record PostView(
+        Long id,
+        String title,
+        String description,
+        String content,
+        Long categoryId,
+        Long version,
+        Long viewCount
+) {
+}
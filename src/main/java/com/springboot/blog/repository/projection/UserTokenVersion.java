@@ -0,0 +1,8 @@
+package com.springboot.blog.repository.projection;
+
+//Username and current token version, read without loading the user or its roles
+public record UserTokenVersion(
+        String username,
+        Long tokenVersion
+) {
+}
@@ -0,0 +1,302 @@
+package com.springboot.blog.search;
+
+import com.springboot.blog.repository.PostRepository;
+import com.springboot.blog.repository.projection.PostView;
+import com.springboot.blog.utils.PostCursor;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+//In-memory inverted index over post title, description and content, ranked with BM25
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PostSearchIndex {
+
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{Nd}]+");
+    private static final int TITLE_WEIGHT = 3;
+    private static final int DESCRIPTION_WEIGHT = 2;
+    private static final int CONTENT_WEIGHT = 1;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int REBUILD_BATCH_SIZE = 1000;
+
+    //best match first, ties broken by the lower id
+    private static final Comparator<Hit> RANKING = Comparator.comparingDouble(Hit::score).reversed()
+            .thenComparingLong(Hit::id);
+
+    private final PostRepository postRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, PostingList> postings = new HashMap<>();
+    private final Map<Long, IndexedPost> posts = new HashMap<>();
+    private long totalLength;
+    //posts removed while a rebuild runs, a batch read before the delete must not bring them back
+    private final Set<Long> removedDuringRebuild = new HashSet<>();
+    private boolean rebuilding;
+
+    //loads the index in keyset batches once the application is up
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        setRebuilding(true);
+        try {
+            PostCursor cursor = null;
+            List<PostView> batch;
+            do {
+                batch = postRepository.findPostsAfter("id", Sort.Direction.ASC, cursor, REBUILD_BATCH_SIZE);
+                lock.writeLock().lock();
+                try {
+                    //a post indexed by a concurrent write is newer than the batch that was just read
+                    batch.stream()
+                            .filter(post -> !posts.containsKey(post.id()) && !removedDuringRebuild.contains(post.id()))
+                            .forEach(post -> add(post.id(), new IndexedPost(FieldTerms.of(post.title()),
+                                    FieldTerms.of(post.description()), FieldTerms.of(post.content()))));
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                if (!batch.isEmpty()) {
+                    PostView last = batch.get(batch.size() - 1);
+                    cursor = new PostCursor("id", Sort.Direction.ASC, String.valueOf(last.id()), last.id());
+                }
+            } while (batch.size() == REBUILD_BATCH_SIZE);
+        } finally {
+            setRebuilding(false);
+        }
+        log.info("Search index built with {} posts and {} terms", size(), termCount());
+    }
+
+    public void index(long postId, String title, String description, String content) {
+        IndexedPost post = new IndexedPost(FieldTerms.of(title), FieldTerms.of(description), FieldTerms.of(content));
+        lock.writeLock().lock();
+        try {
+            unindex(postId, posts.remove(postId));
+            add(postId, post);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    //re-indexes the fields that changed, a null field keeps its indexed terms
+    public void update(long postId, String title, String description, String content) {
+        FieldTerms titleTerms = title == null ? null : FieldTerms.of(title);
+        FieldTerms descriptionTerms = description == null ? null : FieldTerms.of(description);
+        FieldTerms contentTerms = content == null ? null : FieldTerms.of(content);
+        lock.writeLock().lock();
+        try {
+            IndexedPost current = posts.remove(postId);
+            if (current == null) {
+                //not indexed yet, the startup rebuild reads it from the database
+                return;
+            }
+            unindex(postId, current);
+            add(postId, new IndexedPost(titleTerms == null ? current.title() : titleTerms,
+                    descriptionTerms == null ? current.description() : descriptionTerms,
+                    contentTerms == null ? current.content() : contentTerms));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long postId) {
+        lock.writeLock().lock();
+        try {
+            unindex(postId, posts.remove(postId));
+            if (rebuilding) {
+                removedDuringRebuild.add(postId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public SearchHits search(String query, int pageNo, int pageSize) {
+        String[] terms = Arrays.stream(tokenize(query)).distinct().toArray(String[]::new);
+        long offset = (long) pageNo * pageSize;
+        //only the best offset + pageSize hits are kept, the worst one sits at the head of the heap
+        int keep = (int) Math.min(offset + pageSize, Integer.MAX_VALUE - 1);
+        PriorityQueue<Hit> best = new PriorityQueue<>(RANKING.reversed());
+        long total = 0;
+
+        lock.readLock().lock();
+        try {
+            if (posts.isEmpty()) {
+                return new SearchHits(0, List.of());
+            }
+            double averageLength = (double) totalLength / posts.size();
+            List<PostingList> lists = new ArrayList<>(terms.length);
+            for (String term : terms) {
+                PostingList list = postings.get(term);
+                if (list != null) {
+                    lists.add(list);
+                }
+            }
+            double[] idf = new double[lists.size()];
+            for (int i = 0; i < idf.length; i++) {
+                int documentFrequency = lists.get(i).size();
+                idf[i] = Math.log(1 + (posts.size() - documentFrequency + 0.5) / (documentFrequency + 0.5));
+            }
+
+            //k-way merge of the id-sorted posting lists, each post is scored once
+            int[] cursors = new int[lists.size()];
+            while (true) {
+                long postId = Long.MAX_VALUE;
+                for (int i = 0; i < cursors.length; i++) {
+                    if (cursors[i] < lists.get(i).size()) {
+                        postId = Math.min(postId, lists.get(i).id(cursors[i]));
+                    }
+                }
+                if (postId == Long.MAX_VALUE) {
+                    break;
+                }
+                double lengthNorm = K1 * (1 - B + B * posts.get(postId).length() / averageLength);
+                double score = 0;
+                for (int i = 0; i < cursors.length; i++) {
+                    PostingList list = lists.get(i);
+                    if (cursors[i] < list.size() && list.id(cursors[i]) == postId) {
+                        int frequency = list.frequency(cursors[i]++);
+                        score += idf[i] * frequency * (K1 + 1) / (frequency + lengthNorm);
+                    }
+                }
+                total++;
+                best.offer(new Hit(postId, score));
+                if (best.size() > keep) {
+                    best.poll();
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<Long> ids = best.stream()
+                .sorted(RANKING)
+                .skip(offset)
+                .map(Hit::id)
+                .toList();
+        return new SearchHits(total, ids);
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return posts.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void setRebuilding(boolean rebuilding) {
+        lock.writeLock().lock();
+        try {
+            this.rebuilding = rebuilding;
+            removedDuringRebuild.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private int termCount() {
+        lock.readLock().lock();
+        try {
+            return postings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    //callers hold the write lock
+    private void add(long postId, IndexedPost post) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        count(frequencies, post.title(), TITLE_WEIGHT);
+        count(frequencies, post.description(), DESCRIPTION_WEIGHT);
+        count(frequencies, post.content(), CONTENT_WEIGHT);
+        frequencies.forEach((term, frequency) -> postings.computeIfAbsent(term, key -> new PostingList()).put(postId, frequency));
+        posts.put(postId, post);
+        totalLength += post.length();
+    }
+
+    //callers hold the write lock
+    private void unindex(long postId, IndexedPost post) {
+        if (post == null) {
+            return;
+        }
+        removeTerms(postId, post.title());
+        removeTerms(postId, post.description());
+        removeTerms(postId, post.content());
+        totalLength -= post.length();
+    }
+
+    //a term in several fields is looked up again, removing an absent id is a no-op
+    private void removeTerms(long postId, FieldTerms field) {
+        for (String term : field.terms()) {
+            PostingList list = postings.get(term);
+            if (list != null) {
+                list.remove(postId);
+                if (list.size() == 0) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+
+    private static void count(Map<String, Integer> frequencies, FieldTerms field, int weight) {
+        for (int i = 0; i < field.terms().length; i++) {
+            frequencies.merge(field.terms()[i], weight * field.counts()[i], Integer::sum);
+        }
+    }
+
+    private static String[] tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return new String[0];
+        }
+        return Arrays.stream(TOKEN_SEPARATOR.split(text.toLowerCase(Locale.ROOT)))
+                .filter(token -> !token.isEmpty())
+                .toArray(String[]::new);
+    }
+
+    //per field the distinct terms with their counts and the token count, the tokens themselves are not kept;
+    //a PATCH of one field re-weights the others from these counts
+    private record FieldTerms(String[] terms, int[] counts, int length) {
+
+        private static final FieldTerms EMPTY = new FieldTerms(new String[0], new int[0], 0);
+
+        static FieldTerms of(String text) {
+            String[] tokens = tokenize(text);
+            if (tokens.length == 0) {
+                return EMPTY;
+            }
+            Map<String, Integer> counts = new LinkedHashMap<>();
+            for (String token : tokens) {
+                counts.merge(token, 1, Integer::sum);
+            }
+            return new FieldTerms(counts.keySet().toArray(String[]::new),
+                    counts.values().stream().mapToInt(Integer::intValue).toArray(), tokens.length);
+        }
+    }
+
+    private record IndexedPost(FieldTerms title, FieldTerms description, FieldTerms content) {
+
+        int length() {
+            return TITLE_WEIGHT * title.length() + DESCRIPTION_WEIGHT * description.length() + CONTENT_WEIGHT * content.length();
+        }
+    }
+
+    private record Hit(long id, double score) {
+    }
+}
@@ -0,0 +1,7 @@
+package com.springboot.blog.search;
+
+import java.util.List;
+
+//One page of matching post ids, best match first
+public record SearchHits(long total, List<Long> ids) {
+}
@@ -1,8 +1,10 @@
 package com.springboot.blog.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.springboot.blog.entity.User;
 import com.springboot.blog.repository.UserRepository;
-import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -10,18 +12,39 @@ import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
+import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
-@RequiredArgsConstructor
 public class CustomUserDetailsService implements UserDetailsService {
 
     private final UserRepository userRepository;
 
+    //keyed by whatever the user logged in with, username or email
+    //concurrent misses for the same key wait for a single load, unknown users are not cached
+    private final Cache<String, UserDetails> userDetailsCache;
+
+    public CustomUserDetailsService(UserRepository userRepository,
+                                    @Value("${app.user-details-cache.spec:maximumSize=10000,expireAfterWrite=5m}") String cacheSpec) {
+        this.userRepository = userRepository;
+        this.userDetailsCache = Caffeine.from(cacheSpec).build();
+    }
+
     @Override
     public UserDetails loadUserByUsername(String usernameOrEmail) throws UsernameNotFoundException {
-        User user = userRepository.findByUsernameOrEmail(usernameOrEmail, usernameOrEmail)
+        UserDetails userDetails = userDetailsCache.get(usernameOrEmail, this::loadUser);
+        //the authentication manager erases the password of the instance it is given, never hand out the cached one
+        return org.springframework.security.core.userdetails.User.withUserDetails(userDetails).build();
+    }
+
+    //drop every cached entry of the user, call it when the user's password or roles change
+    public void evictUser(String username) {
+        userDetailsCache.asMap().values().removeIf(userDetails -> userDetails.getUsername().equals(username));
+    }
+
+    private UserDetails loadUser(String usernameOrEmail) {
+        User user = findUser(usernameOrEmail)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found with username or email: " + usernameOrEmail));
 
         Set<GrantedAuthority> authorities = user
@@ -32,4 +55,14 @@ public class CustomUserDetailsService implements UserDetailsService {
 
         return new org.springframework.security.core.userdetails.User(user.getUsername(), user.getPassword(), authorities);
     }
+
+    //two single-column lookups on unique indexes instead of an OR across both
+    private Optional<User> findUser(String usernameOrEmail) {
+        if (usernameOrEmail.indexOf('@') < 0) {
+            return userRepository.findByUsername(usernameOrEmail);
+        }
+        //usernames are not forbidden from containing '@'
+        return userRepository.findByEmail(usernameOrEmail)
+                .or(() -> userRepository.findByUsername(usernameOrEmail));
+    }
 }
@@ -1,13 +1,16 @@
 package com.springboot.blog.security;
 
+import com.springboot.blog.exception.BlogAPIException;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
@@ -20,7 +23,6 @@ import java.io.IOException;
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtTokenProvider jwtTokenProvider;
-    private final UserDetailsService userDetailsService;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
@@ -28,16 +30,24 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         //get JWT token from header
         String token = getTokenFromRequest(request);
 
-        //validate JWT
-        if (StringUtils.hasText(token) && jwtTokenProvider.validateToken(token)) {
-            //get username from JWT
-            String username = jwtTokenProvider.getUsername(token);
-            //get user details from username
-            var userDetails = userDetailsService.loadUserByUsername(username);
+        if (StringUtils.hasText(token)) {
+            //validate JWT, the token is parsed once
+            Claims claims = jwtTokenProvider.parseClaims(token);
+            //refresh tokens are only good for the refresh endpoint
+            if (!jwtTokenProvider.isAccessToken(claims)) {
+                throw new BlogAPIException(HttpStatus.UNAUTHORIZED, "Invalid JWT token");
+            }
+            if (jwtTokenProvider.isRevoked(claims)) {
+                throw new BlogAPIException(HttpStatus.UNAUTHORIZED, "Revoked JWT token");
+            }
+            //the user and roles come from the verified claims, no user lookup per request
+            var authorities = jwtTokenProvider.getRoles(claims).stream()
+                    .map(SimpleGrantedAuthority::new)
+                    .toList();
 
             //set authentication to Security Context
             var authenticationToken = new UsernamePasswordAuthenticationToken(
-                    userDetails, null, userDetails.getAuthorities());
+                    claims.getSubject(), null, authorities);
             authenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 
             SecurityContextHolder.getContext().setAuthentication(authenticationToken);
@@ -1,67 +1,140 @@
 package com.springboot.blog.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import com.springboot.blog.exception.BlogAPIException;
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.MalformedJwtException;
 import io.jsonwebtoken.UnsupportedJwtException;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SecurityException;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.stereotype.Component;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.sql.Timestamp;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 @Component
+@RequiredArgsConstructor
 public class JwtTokenProvider {
 
+    public static final String ROLES_CLAIM = "roles";
+    public static final String TOKEN_VERSION_CLAIM = "ver";
+    public static final String TOKEN_TYPE_CLAIM = "typ";
+    private static final String ACCESS_TOKEN = "access";
+    private static final String REFRESH_TOKEN = "refresh";
+
+    private final TokenVersionRegistry tokenVersionRegistry;
+    private final RevokedTokenRegistry revokedTokenRegistry;
+
     @Value("${app.jwt.secret}")
     private String jwtSecret;
 
     @Value("${app.jwt.expiration-milliseconds}")
     private long jwtExpirationDate;
 
-    //generate JWT token
+    @Value("${app.jwt.refresh-expiration-milliseconds}")
+    private long jwtRefreshExpirationDate;
+
+    @Value("${app.jwt.claims-cache-size:10000}")
+    private long claimsCacheSize;
+
+    //the key and parser are immutable and thread-safe, build them once instead of per request
+    private Key signingKey;
+    private JwtParser jwtParser;
+
+    //verified tokens, keyed by their SHA-256 digest so the cache never holds usable credentials
+    private Cache<ByteBuffer, Claims> verifiedClaims;
+
+    @PostConstruct
+    void init() {
+        signingKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSecret));
+        jwtParser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+        verifiedClaims = Caffeine.newBuilder()
+                .maximumSize(claimsCacheSize)
+                .expireAfter(new ClaimsExpiry())
+                .build();
+    }
+
+    //generate JWT access token, it carries the granted roles and the user's token version so requests are authenticated from its claims alone
     public String generateToken(Authentication authentication) {
-        String username = authentication.getName();
+        return tokenBuilder(authentication.getName(), ACCESS_TOKEN, jwtExpirationDate)
+                .claim(ROLES_CLAIM, authentication.getAuthorities().stream()
+                        .map(GrantedAuthority::getAuthority)
+                        .toList())
+                .compact();
+    }
+
+    //generate JWT refresh token, it is only accepted by the refresh endpoint and only once
+    public String generateRefreshToken(String username) {
+        return tokenBuilder(username, REFRESH_TOKEN, jwtRefreshExpirationDate)
+                .compact();
+    }
+
+    private JwtBuilder tokenBuilder(String username, String tokenType, long expirationMilliseconds) {
         LocalDateTime now = LocalDateTime.now();
-        LocalDateTime expirationDate = now.plusSeconds(jwtExpirationDate);
+        LocalDateTime expirationDate = now.plus(expirationMilliseconds, ChronoUnit.MILLIS);
 
         return Jwts.builder()
+                .setId(UUID.randomUUID().toString())
                 .setSubject(username)
                 .setIssuedAt(Timestamp.valueOf(now))
                 .setExpiration(Timestamp.valueOf(expirationDate))
-                .signWith(getSigningKey())
-                .compact();
+                .claim(TOKEN_TYPE_CLAIM, tokenType)
+                .claim(TOKEN_VERSION_CLAIM, tokenVersionRegistry.currentVersion(username))
+                .signWith(signingKey);
+    }
+
+    //validate JWT token and return its claims, a token seen before is not verified again until it expires
+    public Claims parseClaims(String token) {
+        return verifiedClaims.get(digest(token), key -> verify(token));
+    }
+
+    //the token version must still be the user's current one and the token id must not be revoked, both are checked in memory
+    public boolean isRevoked(Claims claims) {
+        return !tokenVersionRegistry.isCurrent(claims.getSubject(), claims.get(TOKEN_VERSION_CLAIM, Long.class))
+                || revokedTokenRegistry.isRevoked(claims.getId());
+    }
+
+    public boolean isAccessToken(Claims claims) {
+        return ACCESS_TOKEN.equals(claims.get(TOKEN_TYPE_CLAIM, String.class));
     }
 
-    private Key getSigningKey() {
-       return Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSecret));
+    public boolean isRefreshToken(Claims claims) {
+        return REFRESH_TOKEN.equals(claims.get(TOKEN_TYPE_CLAIM, String.class));
     }
 
-    //get username from JWT token
-    public String getUsername(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getSubject();
+    public List<String> getRoles(Claims claims) {
+        List<?> roles = claims.get(ROLES_CLAIM, List.class);
+        return roles == null ? List.of() : roles.stream().map(String::valueOf).toList();
     }
 
-    //validate JWT token
-    public boolean validateToken(String token) {
+    private Claims verify(String token) {
         try {
-            Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(token);
-            return true;
-        } catch (MalformedJwtException ex) {
+            return jwtParser.parseClaimsJws(token).getBody();
+        } catch (MalformedJwtException | SecurityException ex) {
             throw new BlogAPIException(HttpStatus.UNAUTHORIZED, "Invalid JWT token");
         } catch (ExpiredJwtException ex) {
             throw new BlogAPIException(HttpStatus.UNAUTHORIZED, "Expired JWT token");
@@ -70,7 +143,38 @@ public class JwtTokenProvider {
         } catch (IllegalArgumentException ex) {
             throw new BlogAPIException(HttpStatus.UNAUTHORIZED, "JWT claims string is empty");
         }
+    }
+
+    private static ByteBuffer digest(String token) {
+        try {
+            return ByteBuffer.wrap(MessageDigest.getInstance("SHA-256")
+                    .digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not available", ex);
+        }
+    }
+
+    //an entry lives exactly as long as its token, so an expired token is always parsed (and rejected) again
+    private static final class ClaimsExpiry implements Expiry<ByteBuffer, Claims> {
+
+        @Override
+        public long expireAfterCreate(ByteBuffer key, Claims claims, long currentTime) {
+            if (claims.getExpiration() == null) {
+                return 0;
+            }
+            long remainingMillis = claims.getExpiration().getTime() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(remainingMillis, 0));
+        }
+
+        @Override
+        public long expireAfterUpdate(ByteBuffer key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
 
+        @Override
+        public long expireAfterRead(ByteBuffer key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
     }
 
 }
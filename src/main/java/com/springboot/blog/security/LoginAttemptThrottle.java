@@ -0,0 +1,47 @@
+package com.springboot.blog.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.springboot.blog.exception.BlogAPIException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//Limits login attempts per username or email within a fixed window, checked before any password work is queued
+@Component
+public class LoginAttemptThrottle {
+
+    private final int maxAttempts;
+    private final Cache<String, AtomicInteger> attempts;
+
+    public LoginAttemptThrottle(@Value("${app.login-throttle.max-attempts:10}") int maxAttempts,
+                                @Value("${app.login-throttle.window:1m}") Duration window,
+                                @Value("${app.login-throttle.maximum-size:100000}") long maximumSize) {
+        this.maxAttempts = maxAttempts;
+        //the window starts with the first attempt, the entry is written once and expires with it
+        this.attempts = Caffeine.newBuilder()
+                .expireAfterWrite(window)
+                .maximumSize(maximumSize)
+                .build();
+    }
+
+    public void acquire(String identity) {
+        int attempt = attempts.get(key(identity), k -> new AtomicInteger()).incrementAndGet();
+        if (attempt > maxAttempts) {
+            throw new BlogAPIException(HttpStatus.TOO_MANY_REQUESTS, "Too many login attempts, try again later");
+        }
+    }
+
+    //a successful login clears the count, only repeated failures keep an identity throttled
+    public void reset(String identity) {
+        attempts.invalidate(key(identity));
+    }
+
+    private static String key(String identity) {
+        return identity == null ? "" : identity.toLowerCase(Locale.ROOT);
+    }
+}
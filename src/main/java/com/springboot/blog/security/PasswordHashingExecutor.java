@@ -0,0 +1,147 @@
+package com.springboot.blog.security;
+
+import com.springboot.blog.datasource.RequestStatementStats;
+import com.springboot.blog.exception.BlogAPIException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+//BCrypt work (login verification, register hashing) runs on a small dedicated pool instead of the request threads
+//When the queue is full the attempt is rejected with 429, so a login flood cannot take every core from cheap reads
+@Component
+public class PasswordHashingExecutor {
+
+    private final ThreadPoolExecutor executor;
+    private final Timer loginTimer;
+    private final Timer registerTimer;
+    private final Timer provisionTimer;
+
+    public PasswordHashingExecutor(MeterRegistry meterRegistry,
+                                   @Value("${app.password-hashing.threads:0}") int threads,
+                                   @Value("${app.password-hashing.queue-capacity:100}") int queueCapacity) {
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("password-hashing-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.loginTimer = hashTimer(meterRegistry, "login");
+        this.registerTimer = hashTimer(meterRegistry, "register");
+        this.provisionTimer = hashTimer(meterRegistry, "provision");
+        Gauge.builder("auth.password.hashing.queue", executor, pool -> pool.getQueue().size())
+                .description("Password hashing tasks waiting for a thread")
+                .register(meterRegistry);
+        Gauge.builder("auth.password.hashing.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Password hashing tasks running")
+                .register(meterRegistry);
+    }
+
+    public <T> T login(Supplier<T> task) {
+        return execute(loginTimer, task);
+    }
+
+    public <T> T register(Supplier<T> task) {
+        return execute(registerTimer, task);
+    }
+
+    //bulk hashing (user provisioning) takes at most parallelism of the pool's threads, 0 takes half of them;
+    //one queued task per thread drains the whole list, so logins keep the other threads and the queue stays short
+    public <T, R> List<R> provision(List<T> items, Function<T, R> hash, int parallelism) {
+        int poolSize = executor.getMaximumPoolSize();
+        int workers = Math.min(items.size(), Math.min(poolSize, parallelism > 0 ? parallelism : Math.max(1, poolSize / 2)));
+        AtomicReferenceArray<R> results = new AtomicReferenceArray<>(items.size());
+        AtomicInteger next = new AtomicInteger();
+        Runnable worker = () -> {
+            int index;
+            while (!Thread.currentThread().isInterrupted() && (index = next.getAndIncrement()) < items.size()) {
+                T item = items.get(index);
+                results.set(index, provisionTimer.record(() -> hash.apply(item)));
+            }
+        };
+        List<Future<?>> futures = new ArrayList<>(workers);
+        for (int i = 0; i < workers; i++) {
+            try {
+                futures.add(executor.submit(worker));
+            } catch (RejectedExecutionException ex) {
+                //fewer workers drain the same list
+                break;
+            }
+        }
+        if (workers > 0 && futures.isEmpty()) {
+            throw tooManyRequests();
+        }
+        try {
+            for (Future<?> future : futures) {
+                await(future);
+            }
+        } finally {
+            //a failed or interrupted provisioning stops the other workers after their current hash
+            next.set(items.size());
+        }
+        List<R> hashed = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            hashed.add(results.get(i));
+        }
+        return hashed;
+    }
+
+    private <T> T execute(Timer timer, Supplier<T> task) {
+        Future<T> future;
+        //the user lookup runs on the hashing thread, its statements are counted for the request
+        Supplier<T> counted = RequestStatementStats.propagate(task);
+        try {
+            future = executor.submit(() -> timer.record(counted));
+        } catch (RejectedExecutionException ex) {
+            throw tooManyRequests();
+        }
+        return await(future);
+    }
+
+    private static <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new BlogAPIException(HttpStatus.SERVICE_UNAVAILABLE, "Authentication was interrupted");
+        } catch (ExecutionException ex) {
+            //rethrow what the task threw, the callers' error handling stays the same
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(ex.getCause());
+        }
+    }
+
+    private static BlogAPIException tooManyRequests() {
+        return new BlogAPIException(HttpStatus.TOO_MANY_REQUESTS, "Too many authentication requests, try again later");
+    }
+
+    private static Timer hashTimer(MeterRegistry meterRegistry, String operation) {
+        return Timer.builder("auth.password.hashing")
+                .description("Time spent verifying or hashing a password")
+                .tag("operation", operation)
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,91 @@
+package com.springboot.blog.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.springboot.blog.config.RateLimitProperties;
+import com.springboot.blog.payload.ErrorDetails;
+import com.springboot.blog.utils.ClientKeys;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.PathContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+//Runs right after JwtAuthenticationFilter so authenticated clients are limited by username, everyone else by address
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private final RateLimitProperties properties;
+    private final ObjectMapper objectMapper;
+    private final RateLimiter rateLimiter;
+    private final List<CompiledRoute> routes;
+
+    public RateLimitFilter(RateLimitProperties properties, ObjectMapper objectMapper) {
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        this.rateLimiter = new RateLimiter(properties.getIdleEviction().toNanos());
+        this.routes = properties.getRoutes().stream()
+                .map(route -> new CompiledRoute(route.getMethod(),
+                        PathPatternParser.defaultInstance.parse(route.getPattern()), route))
+                .toList();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !properties.isEnabled();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        //the route index is part of the key, each route has its own bucket per client
+        int routeIndex = matchRoute(request);
+        RateLimitProperties.Limit limit = routeIndex < 0 ? properties.getDefaultLimit() : routes.get(routeIndex).limit();
+        String key = routeIndex + ":" + ClientKeys.of(request);
+
+        long waitNanos = rateLimiter.tryAcquire(key, limit.getPermitsPerSecond(), limit.getBurst());
+        if (waitNanos > 0) {
+            reject(request, response, waitNanos);
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private int matchRoute(HttpServletRequest request) {
+        if (routes.isEmpty()) {
+            return -1;
+        }
+        PathContainer path = PathContainer.parsePath(request.getRequestURI());
+        for (int i = 0; i < routes.size(); i++) {
+            CompiledRoute route = routes.get(i);
+            if ((!StringUtils.hasText(route.method()) || route.method().equalsIgnoreCase(request.getMethod()))
+                    && route.pattern().matches(path)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void reject(HttpServletRequest request, HttpServletResponse response, long waitNanos) throws IOException {
+        long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), new ErrorDetails(LocalDateTime.now(),
+                "Too many requests, try again later", "uri=" + request.getRequestURI()));
+    }
+
+    private record CompiledRoute(String method, PathPattern pattern, RateLimitProperties.Limit limit) {
+    }
+}
@@ -0,0 +1,56 @@
+package com.springboot.blog.security;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+//Token bucket in its GCRA form: a bucket is a single "theoretical arrival time" updated with compare-and-set
+//No locks on the request path, buckets live in a ConcurrentHashMap and are dropped once they have fully refilled
+public class RateLimiter {
+
+    private final ConcurrentHashMap<String, AtomicLong> arrivalTimes = new ConcurrentHashMap<>();
+    private final long idleEvictionNanos;
+    private final AtomicLong nextEviction;
+
+    public RateLimiter(long idleEvictionNanos) {
+        this.idleEvictionNanos = idleEvictionNanos;
+        this.nextEviction = new AtomicLong(System.nanoTime() + idleEvictionNanos);
+    }
+
+    //returns 0 when the request is allowed, otherwise the nanoseconds until it would be
+    public long tryAcquire(String key, double permitsPerSecond, int burst) {
+        long now = System.nanoTime();
+        long interval = (long) (1_000_000_000L / permitsPerSecond);
+        long tolerance = interval * burst;
+        AtomicLong arrivalTime = arrivalTimes.get(key);
+        if (arrivalTime == null) {
+            arrivalTime = arrivalTimes.computeIfAbsent(key, k -> new AtomicLong(now));
+        }
+        while (true) {
+            long current = arrivalTime.get();
+            long next = (current - now > 0 ? current : now) + interval;
+            long wait = next - now - tolerance;
+            if (wait > 0) {
+                return wait;
+            }
+            if (arrivalTime.compareAndSet(current, next)) {
+                break;
+            }
+        }
+        evictIdle(now);
+        return 0;
+    }
+
+    public int size() {
+        return arrivalTimes.size();
+    }
+
+    //a bucket whose arrival time has passed is full, dropping it is the same as keeping it
+    //a request racing the removal may lose its single permit, which only ever errs towards allowing
+    private void evictIdle(long now) {
+        long due = nextEviction.get();
+        if (now - due < 0 || !nextEviction.compareAndSet(due, now + idleEvictionNanos)) {
+            return;
+        }
+        arrivalTimes.values().removeIf(arrivalTime -> arrivalTime.get() - now <= 0);
+    }
+}
@@ -0,0 +1,80 @@
+package com.springboot.blog.security;
+
+import com.springboot.blog.entity.RevokedToken;
+import com.springboot.blog.repository.RevokedTokenRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+//Ids of revoked, not yet expired tokens, persisted in revoked_tokens and held in memory so checks cost no I/O
+//The Bloom filter answers the common "never revoked" case, the exact map settles its false positives
+@Slf4j
+@Component
+public class RevokedTokenRegistry {
+
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final int filterCapacity;
+    private final Map<String, Instant> revoked = new ConcurrentHashMap<>();
+    private final Object filterLock = new Object();
+    private volatile BloomFilter filter;
+    //guarded by filterLock
+    private int filterSize;
+    private int filterLimit;
+
+    public RevokedTokenRegistry(RevokedTokenRepository revokedTokenRepository,
+                                @Value("${app.jwt.revocation-filter-capacity:100000}") int filterCapacity) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.filterCapacity = filterCapacity;
+    }
+
+    //loaded before the web server starts, a revoked token is never accepted during startup
+    @PostConstruct
+    void load() {
+        Instant now = Instant.now();
+        int purged = revokedTokenRepository.deleteExpired(now);
+        revokedTokenRepository.findByExpiresAtAfter(now)
+                .forEach(token -> revoked.put(token.getJti(), token.getExpiresAt()));
+        synchronized (filterLock) {
+            rebuildFilter();
+        }
+        log.info("Loaded {} revoked tokens, purged {} expired", revoked.size(), purged);
+    }
+
+    public boolean isRevoked(String jti) {
+        return jti != null && filter.mightContain(jti) && revoked.containsKey(jti);
+    }
+
+    //returns false when the token was already revoked, so a token can be consumed only once
+    public boolean revoke(String jti, Instant expiresAt) {
+        synchronized (filterLock) {
+            if (revoked.putIfAbsent(jti, expiresAt) != null) {
+                return false;
+            }
+            //past capacity the false positive rate climbs, start over with the tokens that are still live
+            if (++filterSize > filterLimit) {
+                rebuildFilter();
+            } else {
+                filter.put(jti);
+            }
+        }
+        revokedTokenRepository.save(new RevokedToken(jti, expiresAt));
+        return true;
+    }
+
+    private void rebuildFilter() {
+        Instant now = Instant.now();
+        revoked.values().removeIf(expiresAt -> !expiresAt.isAfter(now));
+        filterLimit = Math.max(filterCapacity, revoked.size() * 2);
+        BloomFilter rebuilt = new BloomFilter(filterLimit, FALSE_POSITIVE_RATE);
+        revoked.keySet().forEach(rebuilt::put);
+        filter = rebuilt;
+        filterSize = revoked.size();
+    }
+}
@@ -0,0 +1,59 @@
+package com.springboot.blog.security;
+
+import com.springboot.blog.exception.BlogAPIException;
+import com.springboot.blog.repository.UserRepository;
+import com.springboot.blog.repository.projection.UserTokenVersion;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+//Current token version of every user, kept in memory so authenticated requests never touch the database
+//Versions only grow, so concurrent loads and revocations are merged with max
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TokenVersionRegistry {
+
+    private final UserRepository userRepository;
+    private final Map<String, Long> versions = new ConcurrentHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        for (UserTokenVersion user : userRepository.findAllTokenVersions()) {
+            versions.merge(user.username(), user.tokenVersion(), Math::max);
+        }
+        log.info("Loaded token versions of {} users", versions.size());
+    }
+
+    //users registered after startup are loaded on first use, an unknown user has no valid version
+    public Long currentVersion(String username) {
+        Long version = versions.get(username);
+        if (version != null) {
+            return version;
+        }
+        return userRepository.findTokenVersionByUsername(username)
+                .map(loaded -> versions.merge(username, loaded, Math::max))
+                .orElse(null);
+    }
+
+    public boolean isCurrent(String username, Long version) {
+        return version != null && version.equals(currentVersion(username));
+    }
+
+    //invalidates every token issued to the user so far
+    public void revoke(String username) {
+        if (userRepository.incrementTokenVersion(username) == 0) {
+            throw new BlogAPIException(HttpStatus.NOT_FOUND,
+                    String.format("User not found with username : '%s'", username));
+        }
+        userRepository.findTokenVersionByUsername(username)
+                .ifPresent(version -> versions.merge(username, version, Math::max));
+    }
+
+}
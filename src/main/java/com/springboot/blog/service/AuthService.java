@@ -1,10 +1,14 @@
 package com.springboot.blog.service;
 
+import com.springboot.blog.payload.JWTAuthResponse;
 import com.springboot.blog.payload.LoginDto;
 import com.springboot.blog.payload.RegisterDto;
 
 public interface AuthService {
-    String login(LoginDto loginDto);
+    JWTAuthResponse login(LoginDto loginDto);
+    JWTAuthResponse refresh(String refreshToken);
+    String logout(String refreshToken, String accessToken);
     String register(RegisterDto registerDto);
+    String revokeTokens(String username);
 
 }
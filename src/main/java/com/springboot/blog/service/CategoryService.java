@@ -1,15 +1,21 @@
 package com.springboot.blog.service;
 
+import com.springboot.blog.payload.CategoryDeletionStatus;
 import com.springboot.blog.payload.CategoryDto;
 
 import java.util.List;
+import java.util.Optional;
 
 public interface CategoryService {
 
     CategoryDto addCategory(CategoryDto categoryDto);
     CategoryDto getCategory(Long categoryId);
+    long getCategoryVersion(Long categoryId);
     List<CategoryDto> getAllCategories();
+    long getCategoriesVersion();
     CategoryDto updateCategory(Long categoryId, CategoryDto categoryDto);
-    void deleteCategory(Long categoryId);
+    //empty when the category was deleted right away, otherwise the background job that deletes it
+    Optional<CategoryDeletionStatus> deleteCategory(Long categoryId);
+    CategoryDeletionStatus getCategoryDeletion(long deletionId);
 
 }
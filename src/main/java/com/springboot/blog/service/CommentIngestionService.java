@@ -0,0 +1,10 @@
+package com.springboot.blog.service;
+
+import com.springboot.blog.payload.CommentDto;
+import com.springboot.blog.payload.CommentReceipt;
+
+public interface CommentIngestionService {
+
+    CommentReceipt enqueueComment(long postId, CommentDto commentDto);
+
+}
@@ -1,6 +1,9 @@
 package com.springboot.blog.service;
 
 import com.springboot.blog.payload.CommentDto;
+import com.springboot.blog.payload.CommentPatchDto;
+import com.springboot.blog.payload.CommentResponse;
+import com.springboot.blog.payload.PatchResponse;
 
 import java.util.List;
 
@@ -8,12 +11,21 @@ public interface CommentService {
 
     CommentDto createComment(long postId, CommentDto commentDto);
 
-    List<CommentDto> getCommentsByPostId(long postId);
+    CommentResponse getCommentsByPostId(long postId);
+
+    CommentResponse getCommentsByPostId(long postId, Long after, int pageNo, int pageSize);
+
+    long getCommentsVersion(long postId);
 
     CommentDto getCommentById(long postId, long commentId);
 
+    //the version alone, for answering If-None-Match without loading or mapping the comment
+    long getCommentVersion(long postId, long commentId);
+
     CommentDto updateComment(long postId, long commentId, CommentDto commentDto);
 
+    PatchResponse patchComment(long postId, long commentId, long expectedVersion, CommentPatchDto patch);
+
     void deleteComment(long postId, long commentId);
 
 }
@@ -0,0 +1,12 @@
+package com.springboot.blog.service;
+
+import com.springboot.blog.payload.PostImportResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+public interface PostImportService {
+
+    PostImportResponse importPosts(InputStream inputStream) throws IOException;
+
+}
@@ -1,8 +1,12 @@
 package com.springboot.blog.service;
 
+import com.springboot.blog.payload.PatchResponse;
 import com.springboot.blog.payload.PostDto;
+import com.springboot.blog.payload.PostPatchDto;
 import com.springboot.blog.payload.PostResponse;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 
 public interface PostService {
@@ -11,12 +15,28 @@ public interface PostService {
 
     PostResponse getAllPosts(int pageNo, int pageSize, String sortBy, String sortDir);
 
+    PostResponse getAllPostsAfter(String after, int pageSize, String sortBy, String sortDir);
+
     PostDto getPostById(Long categoryId);
 
+    //the version alone, for answering If-None-Match without loading or mapping the post
+    long getPostVersion(long postId);
+
+    //a read answered with 304 is still a view
+    void countView(long postId);
+
+    List<PostDto> getMostViewedPosts(int size);
+
     PostDto updatePost(PostDto postDto, Long categoryId);
 
+    PatchResponse patchPost(long postId, long expectedVersion, PostPatchDto patch);
+
     void deletePostById(Long categoryId);
 
     List<PostDto> getPostByCategoryId(Long categoryId);
 
+    PostResponse searchPosts(String query, int pageNo, int pageSize);
+
+    void exportPosts(OutputStream outputStream) throws IOException;
+
 }
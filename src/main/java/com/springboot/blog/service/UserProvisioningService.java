@@ -0,0 +1,12 @@
+package com.springboot.blog.service;
+
+import com.springboot.blog.payload.RegisterDto;
+import com.springboot.blog.payload.UserProvisioningResponse;
+
+import java.util.List;
+
+public interface UserProvisioningService {
+
+    UserProvisioningResponse provisionUsers(List<RegisterDto> users);
+
+}
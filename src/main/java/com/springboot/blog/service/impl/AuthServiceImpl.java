@@ -4,19 +4,31 @@ import com.springboot.blog.RoleRepository;
 import com.springboot.blog.entity.Role;
 import com.springboot.blog.entity.User;
 import com.springboot.blog.exception.BlogAPIException;
+import com.springboot.blog.payload.JWTAuthResponse;
 import com.springboot.blog.payload.LoginDto;
 import com.springboot.blog.payload.RegisterDto;
 import com.springboot.blog.repository.UserRepository;
+import com.springboot.blog.security.CustomUserDetailsService;
 import com.springboot.blog.security.JwtTokenProvider;
+import com.springboot.blog.security.LoginAttemptThrottle;
+import com.springboot.blog.security.PasswordHashingExecutor;
+import com.springboot.blog.security.RevokedTokenRegistry;
+import com.springboot.blog.security.TokenVersionRegistry;
 import com.springboot.blog.service.AuthService;
+import com.springboot.blog.utils.AppConstants;
+import io.jsonwebtoken.Claims;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
 
 import java.util.HashSet;
 import java.util.Set;
@@ -30,46 +42,107 @@ public class AuthServiceImpl implements AuthService {
     private final RoleRepository roleRepository;
     private final PasswordEncoder passwordEncoder;
     private final JwtTokenProvider jwtTokenProvider;
+    private final TokenVersionRegistry tokenVersionRegistry;
+    private final CustomUserDetailsService userDetailsService;
+    private final PasswordHashingExecutor passwordHashingExecutor;
+    private final LoginAttemptThrottle loginAttemptThrottle;
+    private final RevokedTokenRegistry revokedTokenRegistry;
+    private final TransactionTemplate transactionTemplate;
 
     @Override
-    public String login(LoginDto loginDto) {
-        Authentication authentication = authenticationManager.authenticate(
+    public JWTAuthResponse login(LoginDto loginDto) {
+        loginAttemptThrottle.acquire(loginDto.getUsernameOrEmail());
+        Authentication authentication = passwordHashingExecutor.login(() -> authenticationManager.authenticate(
                 new UsernamePasswordAuthenticationToken(
                         loginDto.getUsernameOrEmail(),
                         loginDto.getPassword()
                 )
-        );
+        ));
+        loginAttemptThrottle.reset(loginDto.getUsernameOrEmail());
 
         SecurityContextHolder.getContext().setAuthentication(authentication);
 
-        return jwtTokenProvider.generateToken(authentication);
+        return issueTokens(authentication);
     }
 
     @Override
-    public String register(RegisterDto registerDto) {
+    public JWTAuthResponse refresh(String refreshToken) {
+        Claims claims = parseRefreshToken(refreshToken);
+        //the old refresh token is consumed, replaying it (or racing a second refresh with it) fails
+        if (!revokedTokenRegistry.revoke(claims.getId(), claims.getExpiration().toInstant())) {
+            throw new BlogAPIException(HttpStatus.UNAUTHORIZED, "Revoked JWT token");
+        }
+        //roles are read again so a refreshed access token reflects role changes
+        UserDetails userDetails = userDetailsService.loadUserByUsername(claims.getSubject());
+        return issueTokens(new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities()));
+    }
 
-        //check if username is already taken
-        if (userRepository.existsByUsername(registerDto.getUsername())) {
-            throw new BlogAPIException(HttpStatus.BAD_REQUEST, "Username is already taken");
+    @Override
+    public String logout(String refreshToken, String accessToken) {
+        Claims claims = parseRefreshToken(refreshToken);
+        revokedTokenRegistry.revoke(claims.getId(), claims.getExpiration().toInstant());
+        if (StringUtils.hasText(accessToken)) {
+            Claims accessClaims = jwtTokenProvider.parseClaims(accessToken);
+            revokedTokenRegistry.revoke(accessClaims.getId(), accessClaims.getExpiration().toInstant());
         }
-        // check if email is already taken
-        if (userRepository.existsByEmail(registerDto.getEmail())) {
-            throw new BlogAPIException(HttpStatus.BAD_REQUEST, "Email is already taken");
+        return "Logged out successfully";
+    }
+
+    private Claims parseRefreshToken(String refreshToken) {
+        if (!StringUtils.hasText(refreshToken)) {
+            throw new BlogAPIException(HttpStatus.BAD_REQUEST, "Refresh token is required");
+        }
+        Claims claims = jwtTokenProvider.parseClaims(refreshToken);
+        if (!jwtTokenProvider.isRefreshToken(claims)) {
+            throw new BlogAPIException(HttpStatus.UNAUTHORIZED, "Invalid refresh token");
         }
+        if (jwtTokenProvider.isRevoked(claims)) {
+            throw new BlogAPIException(HttpStatus.UNAUTHORIZED, "Revoked JWT token");
+        }
+        return claims;
+    }
 
-        User user = User.builder()
-                .name(registerDto.getName())
-                .username(registerDto.getUsername())
-                .email(registerDto.getEmail())
-                .password(passwordEncoder.encode(registerDto.getPassword()))
-                .build();
-        Set<Role> roles = new HashSet<>();
-        Role userRole = roleRepository.findByName("ROLE_USER")
+    private JWTAuthResponse issueTokens(Authentication authentication) {
+        JWTAuthResponse jwtAuthResponse = new JWTAuthResponse();
+        jwtAuthResponse.setAccessToken(jwtTokenProvider.generateToken(authentication));
+        jwtAuthResponse.setRefreshToken(jwtTokenProvider.generateRefreshToken(authentication.getName()));
+        return jwtAuthResponse;
+    }
+
+    @Override
+    public String register(RegisterDto registerDto) {
+        //hash first, the transaction below is only the insert
+        String password = passwordHashingExecutor.register(() -> passwordEncoder.encode(registerDto.getPassword()));
+        Long roleId = roleRepository.findIdByName(AppConstants.DEFAULT_ROLE)
                 .orElseThrow(() -> new BlogAPIException(HttpStatus.BAD_REQUEST, "User Role not set."));
-        roles.add(userRole);
-        user.setRoles(roles);
-        userRepository.save(user);
+
+        //the unique constraints decide taken usernames and emails, two concurrent sign-ups cannot both pass
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                Set<Role> roles = new HashSet<>();
+                roles.add(roleRepository.getReferenceById(roleId));
+                User user = User.builder()
+                        .name(registerDto.getName())
+                        .username(registerDto.getUsername())
+                        .email(registerDto.getEmail())
+                        .password(password)
+                        .roles(roles)
+                        .build();
+                userRepository.save(user);
+            });
+        } catch (DataIntegrityViolationException ex) {
+            throw new BlogAPIException(HttpStatus.BAD_REQUEST,
+                    UserConflicts.describe(userRepository, registerDto.getUsername(), registerDto.getEmail()));
+        }
 
         return "User Registered Successfully";
     }
+
+    @Override
+    public String revokeTokens(String username) {
+        tokenVersionRegistry.revoke(username);
+        //revocation follows a password or role change, the next login must see it
+        userDetailsService.evictUser(username);
+        return "Tokens revoked successfully";
+    }
 }
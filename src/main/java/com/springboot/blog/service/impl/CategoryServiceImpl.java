@@ -1,40 +1,113 @@
 package com.springboot.blog.service.impl;
 
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.springboot.blog.entity.Category;
 import com.springboot.blog.exception.ResourceNotFoundException;
+import com.springboot.blog.mapper.CategoryMapper;
+import com.springboot.blog.payload.CategoryDeletionStatus;
 import com.springboot.blog.payload.CategoryDto;
 import com.springboot.blog.repository.CategoryRepository;
+import com.springboot.blog.repository.CommentRepository;
+import com.springboot.blog.repository.PostRepository;
+import com.springboot.blog.search.PostSearchIndex;
 import com.springboot.blog.service.CategoryService;
-import lombok.RequiredArgsConstructor;
-import org.modelmapper.ModelMapper;
+import com.springboot.blog.utils.AppConstants;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
+@Slf4j
 @Service
-@RequiredArgsConstructor
 public class CategoryServiceImpl  implements CategoryService {
 
     private final CategoryRepository categoryRepository;
-    private final ModelMapper mapper;
+    private final CategoryMapper mapper;
+    private final PostRepository postRepository;
+    private final CommentRepository commentRepository;
+    private final PostSearchIndex searchIndex;
+    private final TransactionTemplate transactionTemplate;
+    private final Cache postsCache;
+
+    //immutable copy of all categories, readers only do a volatile read and copy out what they return
+    private volatile CategorySnapshot snapshot;
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+
+    //categories with more posts are deleted in chunks by a background job, one job at a time
+    private final int deletionSyncLimit;
+    private final int deletionChunkSize;
+    private final ExecutorService deletionExecutor =
+            Executors.newSingleThreadExecutor(task -> new Thread(task, "category-deletion"));
+    private final AtomicLong deletionIds = new AtomicLong();
+    //finished jobs are kept for polling until the retention passes, running ones are re-put on every chunk
+    private final com.github.benmanes.caffeine.cache.Cache<Long, DeletionJob> deletions;
+    private final Map<Long, DeletionJob> runningDeletions = new ConcurrentHashMap<>();
+
+    public CategoryServiceImpl(CategoryRepository categoryRepository,
+                               CategoryMapper mapper,
+                               PostRepository postRepository,
+                               CommentRepository commentRepository,
+                               PostSearchIndex searchIndex,
+                               TransactionTemplate transactionTemplate,
+                               CacheManager cacheManager,
+                               @Value("${app.category-deletion.sync-limit:1000}") int deletionSyncLimit,
+                               @Value("${app.category-deletion.chunk-size:500}") int deletionChunkSize,
+                               @Value("${app.category-deletion.retention:1h}") Duration deletionRetention) {
+        this.categoryRepository = categoryRepository;
+        this.mapper = mapper;
+        this.postRepository = postRepository;
+        this.commentRepository = commentRepository;
+        this.searchIndex = searchIndex;
+        this.transactionTemplate = transactionTemplate;
+        this.postsCache = cacheManager.getCache(AppConstants.POSTS_CACHE);
+        this.deletionSyncLimit = deletionSyncLimit;
+        this.deletionChunkSize = deletionChunkSize;
+        this.deletions = Caffeine.newBuilder().expireAfterWrite(deletionRetention).build();
+    }
 
     @Override
     public CategoryDto addCategory(CategoryDto categoryDto) {
-        Category category = mapper.map(categoryDto, Category.class);
+        Category category = mapper.mapToEntity(categoryDto);
         Category saved = categoryRepository.save(category);
-        return mapper.map(saved, CategoryDto.class);
+        rebuildSnapshot();
+        return mapper.mapToDTO(saved);
     }
 
     @Override
     public CategoryDto getCategory(Long categoryId) {
-        Category category = categoryRepository.findById(categoryId).orElseThrow(() -> new ResourceNotFoundException("Category", "id", categoryId));
-        return mapper.map(category, CategoryDto.class);
+        return snapshotEntry(categoryId).toDto();
+    }
+
+    @Override
+    public long getCategoryVersion(Long categoryId) {
+        return snapshotEntry(categoryId).version();
     }
 
     @Override
     public List<CategoryDto> getAllCategories() {
-        List<Category> categories = categoryRepository.findAll();
-        return categories.stream().map(category -> mapper.map(category, CategoryDto.class)).toList();
+        return currentSnapshot().categories().stream().map(CategoryEntry::toDto).toList();
+    }
+
+    @Override
+    public long getCategoriesVersion() {
+        return currentSnapshot().version();
     }
 
     @Override
@@ -43,12 +116,199 @@ public class CategoryServiceImpl  implements CategoryService {
         category.setName(categoryDto.getName());
         category.setDescription(categoryDto.getDescription());
         Category updated = categoryRepository.save(category);
-        return mapper.map(updated, CategoryDto.class);
+        rebuildSnapshot();
+        return mapper.mapToDTO(updated);
     }
 
+    //deleting a category deletes its posts and their comments with set-based statements, in foreign key order
     @Override
-    public void deleteCategory(Long categoryId) {
-        Category category = categoryRepository.findById(categoryId).orElseThrow(() -> new ResourceNotFoundException("Category", "id", categoryId));
-        categoryRepository.delete(category);
+    public Optional<CategoryDeletionStatus> deleteCategory(Long categoryId) {
+        if (!categoryRepository.existsById(categoryId)) {
+            throw new ResourceNotFoundException("Category", "id", categoryId);
+        }
+        long posts = postRepository.countByCategoryId(categoryId);
+        if (posts <= deletionSyncLimit) {
+            deleteCategoryWithPosts(categoryId);
+            return Optional.empty();
+        }
+
+        //a repeated request while the job runs gets the running job
+        DeletionJob job = runningDeletions.computeIfAbsent(categoryId, id -> {
+            DeletionJob started = new DeletionJob(deletionIds.incrementAndGet(), id, posts);
+            deletions.put(started.id, started);
+            deletionExecutor.execute(() -> runDeletion(started));
+            return started;
+        });
+        return Optional.of(job.toStatus());
+    }
+
+    @Override
+    public CategoryDeletionStatus getCategoryDeletion(long deletionId) {
+        DeletionJob job = deletions.getIfPresent(deletionId);
+        if (job == null) {
+            throw new ResourceNotFoundException("Category deletion", "id", deletionId);
+        }
+        return job.toStatus();
+    }
+
+    //every chunk is its own short transaction, a failure keeps what was already deleted and the job can be started again
+    private void runDeletion(DeletionJob job) {
+        try {
+            List<Long> postIds;
+            while ((postIds = postRepository.findIdsByCategoryId(job.categoryId, PageRequest.of(0, deletionChunkSize))).size() == deletionChunkSize) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new IllegalStateException("Stopped by shutdown");
+                }
+                List<Long> chunk = postIds;
+                transactionTemplate.executeWithoutResult(status -> deletePosts(chunk));
+                afterPostsDeleted(chunk);
+                job.postsDeleted += chunk.size();
+                deletions.put(job.id, job);
+            }
+            try {
+                job.postsDeleted += deleteCategoryWithPosts(job.categoryId);
+            } catch (ResourceNotFoundException ex) {
+                //a synchronous DELETE of the now small category got there first, it is gone either way
+                log.debug("Category {} was deleted before the job's last step", job.categoryId);
+            }
+            job.finish(CategoryDeletionStatus.State.COMPLETED, null);
+        } catch (RuntimeException ex) {
+            log.error("Deleting category {} failed after {} posts", job.categoryId, job.postsDeleted, ex);
+            job.finish(CategoryDeletionStatus.State.FAILED, ex.getMessage());
+        } finally {
+            deletions.put(job.id, job);
+            runningDeletions.remove(job.categoryId, job);
+        }
+    }
+
+    //the category row is locked first, a post inserted into it concurrently waits and then fails instead of being orphaned
+    private int deleteCategoryWithPosts(Long categoryId) {
+        List<Long> postIds = transactionTemplate.execute(status -> {
+            if (categoryRepository.incrementVersion(categoryId) == 0) {
+                throw new ResourceNotFoundException("Category", "id", categoryId);
+            }
+            postRepository.incrementVersionsByCategoryId(categoryId);
+            List<Long> ids = postRepository.findIdsByCategoryId(categoryId);
+            if (!ids.isEmpty()) {
+                commentRepository.deleteAllByPostIdIn(ids);
+            }
+            postRepository.deleteAllByCategoryId(categoryId);
+            categoryRepository.deleteByIdInBulk(categoryId);
+            return ids;
+        });
+        afterPostsDeleted(postIds);
+        rebuildSnapshot();
+        return postIds.size();
+    }
+
+    //callers run this in a transaction, the posts are locked before their comments are deleted
+    private void deletePosts(List<Long> postIds) {
+        postRepository.incrementVersions(postIds);
+        commentRepository.deleteAllByPostIdIn(postIds);
+        postRepository.deleteAllByIdIn(postIds);
+    }
+
+    private void afterPostsDeleted(List<Long> postIds) {
+        postIds.forEach(postId -> {
+            searchIndex.remove(postId);
+            postsCache.evict(postId);
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        deletionExecutor.shutdownNow();
+    }
+
+    private CategoryEntry snapshotEntry(Long categoryId) {
+        CategoryEntry category = currentSnapshot().byId().get(categoryId);
+        if (category == null) {
+            throw new ResourceNotFoundException("Category", "id", categoryId);
+        }
+        return category;
+    }
+
+    //the first readers wait for one build instead of each building their own
+    private CategorySnapshot currentSnapshot() {
+        CategorySnapshot current = snapshot;
+        if (current != null) {
+            return current;
+        }
+        rebuildLock.lock();
+        try {
+            current = snapshot;
+            return current != null ? current : rebuildSnapshot();
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    //writers rebuild after their change is committed, the lock keeps versions in commit order
+    private CategorySnapshot rebuildSnapshot() {
+        rebuildLock.lock();
+        try {
+            List<CategoryEntry> categories = categoryRepository.findAllDtos().stream().map(CategoryEntry::of).toList();
+            Map<Long, CategoryEntry> byId = categories.stream()
+                    .collect(Collectors.toUnmodifiableMap(CategoryEntry::id, Function.identity()));
+            //seeded from the clock so the version keeps moving forward across restarts
+            long version = snapshot != null ? snapshot.version() + 1 : System.currentTimeMillis();
+            CategorySnapshot rebuilt = new CategorySnapshot(version, categories, byId);
+            snapshot = rebuilt;
+            return rebuilt;
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    private static final class DeletionJob {
+        private final long id;
+        private final long categoryId;
+        private final long postsTotal;
+        private final Instant startedAt = Instant.now();
+        //written by the job thread only
+        private volatile long postsDeleted;
+        private volatile CategoryDeletionStatus.State state = CategoryDeletionStatus.State.RUNNING;
+        private volatile Instant finishedAt;
+        private volatile String error;
+
+        private DeletionJob(long id, long categoryId, long postsTotal) {
+            this.id = id;
+            this.categoryId = categoryId;
+            this.postsTotal = postsTotal;
+        }
+
+        private void finish(CategoryDeletionStatus.State state, String error) {
+            this.error = error;
+            this.finishedAt = Instant.now();
+            this.state = state;
+        }
+
+        private CategoryDeletionStatus toStatus() {
+            return CategoryDeletionStatus.builder()
+                    .id(id)
+                    .categoryId(categoryId)
+                    .state(state)
+                    .postsTotal(postsTotal)
+                    .postsDeleted(postsDeleted)
+                    .startedAt(startedAt)
+                    .finishedAt(finishedAt)
+                    .error(error)
+                    .build();
+        }
+    }
+
+    private record CategorySnapshot(long version, List<CategoryEntry> categories, Map<Long, CategoryEntry> byId) {
+    }
+
+    //CategoryDto is mutable, the snapshot keeps its own values and every caller gets a fresh dto
+    private record CategoryEntry(Long id, String name, String description, Long version) {
+
+        private static CategoryEntry of(CategoryDto category) {
+            return new CategoryEntry(category.getId(), category.getName(), category.getDescription(), category.getVersion());
+        }
+
+        private CategoryDto toDto() {
+            return new CategoryDto(id, name, description, version);
+        }
     }
 }
@@ -0,0 +1,255 @@
+package com.springboot.blog.service.impl;
+
+import com.springboot.blog.exception.BlogAPIException;
+import com.springboot.blog.payload.CommentDto;
+import com.springboot.blog.payload.CommentReceipt;
+import com.springboot.blog.repository.PostRepository;
+import com.springboot.blog.service.CommentIngestionService;
+import com.springboot.blog.utils.AppConstants;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+//Write-behind comment creation: requests only enqueue, a single flusher writes the queue in batched transactions
+//A batch is flushed when it reaches batch-size or flush-interval after its first comment, whichever comes first
+//Accepted comments are never given up on a transient failure (pool exhausted, connection lost): the batch is retried until written
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "app.comment-ingestion.enabled", havingValue = "true")
+public class CommentIngestionServiceImpl implements CommentIngestionService, SmartLifecycle {
+
+    private static final String INSERT_COMMENT =
+            "insert into comments (name, email, body, post_id, version) values (?, ?, ?, ?, 0)";
+    private static final String INCREMENT_POST_VERSION =
+            "update posts set version = version + 1 where id = ?";
+    private static final long MAX_RETRY_BACKOFF_MILLISECONDS = 5_000;
+
+    private final PostRepository postRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Cache postsCache;
+    private final BlockingQueue<PendingComment> queue;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final Duration shutdownTimeout;
+    private final Counter flushedComments;
+    private final Counter droppedComments;
+
+    private volatile boolean running;
+    private Thread flusher;
+
+    public CommentIngestionServiceImpl(PostRepository postRepository,
+                                       JdbcTemplate jdbcTemplate,
+                                       TransactionTemplate transactionTemplate,
+                                       CacheManager cacheManager,
+                                       MeterRegistry meterRegistry,
+                                       @Value("${app.comment-ingestion.queue-capacity:10000}") int queueCapacity,
+                                       @Value("${app.comment-ingestion.batch-size:500}") int batchSize,
+                                       @Value("${app.comment-ingestion.flush-interval:200ms}") Duration flushInterval,
+                                       @Value("${app.comment-ingestion.shutdown-timeout:30s}") Duration shutdownTimeout) {
+        this.postRepository = postRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.postsCache = cacheManager.getCache(AppConstants.POSTS_CACHE);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.shutdownTimeout = shutdownTimeout;
+        this.flushedComments = Counter.builder("comments.ingestion.flushed")
+                .description("Queued comments written to the database")
+                .register(meterRegistry);
+        this.droppedComments = Counter.builder("comments.ingestion.dropped")
+                .description("Queued comments that could not be written")
+                .register(meterRegistry);
+        Gauge.builder("comments.ingestion.queue", queue, BlockingQueue::size)
+                .description("Comments waiting to be written")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public CommentReceipt enqueueComment(long postId, CommentDto commentDto) {
+        PendingComment comment = new PendingComment(UUID.randomUUID().toString(), postId,
+                commentDto.getName(), commentDto.getEmail(), commentDto.getBody());
+        //backpressure: a full queue (or one that is draining for shutdown) refuses instead of growing
+        if (!running || !queue.offer(comment)) {
+            throw new BlogAPIException(HttpStatus.SERVICE_UNAVAILABLE, "Comment queue is full, try again later");
+        }
+        //stop() may have run between the check and the offer, and the flusher may have seen an empty queue and exited:
+        //take the comment back unless the flusher already has it
+        if (!running && queue.remove(comment)) {
+            throw new BlogAPIException(HttpStatus.SERVICE_UNAVAILABLE, "Comment queue is full, try again later");
+        }
+        CommentDto accepted = new CommentDto(null, comment.name(), comment.email(), comment.body(), null);
+        return new CommentReceipt(comment.provisionalId(), postId, accepted);
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        flusher = new Thread(this::flushLoop, "comment-flusher");
+        flusher.start();
+    }
+
+    //drains the queue, a flusher still retrying when the timeout passes is interrupted and counts what it gives up
+    @Override
+    public void stop() {
+        running = false;
+        try {
+            flusher.join(shutdownTimeout.toMillis());
+            if (flusher.isAlive()) {
+                flusher.interrupt();
+                flusher.join();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    //below the web server's lifecycles (DEFAULT_PHASE - 1024 graceful shutdown, - 2048 start/stop), so it stops after them
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    private void flushLoop() {
+        List<PendingComment> batch = new ArrayList<>(batchSize);
+        try {
+            while (running || !queue.isEmpty()) {
+                PendingComment first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                collect(batch, System.nanoTime() + flushIntervalNanos);
+                flush(batch);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            int lost = batch.size() + queue.size();
+            log.error("Comment flusher stopped before the queue was written, {} comments lost", lost);
+            droppedComments.increment(lost);
+        }
+    }
+
+    //fills the batch until it is full or the deadline passes, shutdown drains without waiting
+    private void collect(List<PendingComment> batch, long deadline) throws InterruptedException {
+        while (batch.size() < batchSize) {
+            if (queue.drainTo(batch, batchSize - batch.size()) > 0) {
+                continue;
+            }
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0 || !running) {
+                return;
+            }
+            PendingComment next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    //written and dropped comments are removed from the batch, it is empty on return
+    private void flush(List<PendingComment> batch) throws InterruptedException {
+        boolean rowByRow = false;
+        for (int failures = 0; !batch.isEmpty(); ) {
+            try {
+                dropUnknownPosts(batch);
+                if (rowByRow) {
+                    insertOneByOne(batch);
+                } else if (!batch.isEmpty()) {
+                    transactionTemplate.executeWithoutResult(status -> insert(batch));
+                    written(batch);
+                    batch.clear();
+                }
+            } catch (DataIntegrityViolationException ex) {
+                //a batch rejected by a constraint holds at least one bad row, write row by row to isolate it
+                log.warn("Comment batch flush failed, retrying row by row", ex);
+                rowByRow = true;
+            } catch (RuntimeException ex) {
+                //no connection, lock timeout, lost connection: nothing was written, back off and try the same comments again
+                failures++;
+                long backoff = Math.min(MAX_RETRY_BACKOFF_MILLISECONDS, 100L << Math.min(failures, 10));
+                log.warn("Comment flush failed {} times, retrying {} comments in {} ms", failures, batch.size(), backoff, ex);
+                TimeUnit.MILLISECONDS.sleep(backoff);
+            }
+        }
+    }
+
+    //comments of deleted or unknown posts are dropped, one query per batch instead of one per comment
+    private void dropUnknownPosts(List<PendingComment> batch) {
+        Set<Long> postIds = postRepository.findExistingIds(batch.stream().map(PendingComment::postId).toList());
+        int size = batch.size();
+        batch.removeIf(comment -> !postIds.contains(comment.postId()));
+        if (batch.size() < size) {
+            log.warn("Dropping {} queued comments of unknown posts", size - batch.size());
+            droppedComments.increment(size - batch.size());
+        }
+    }
+
+    //a row failing on a constraint is dropped, any other failure leaves the remaining rows in the batch for the retry
+    private void insertOneByOne(List<PendingComment> batch) {
+        for (Iterator<PendingComment> comments = batch.iterator(); comments.hasNext(); ) {
+            PendingComment comment = comments.next();
+            try {
+                transactionTemplate.executeWithoutResult(status -> insert(List.of(comment)));
+                written(List.of(comment));
+            } catch (DataIntegrityViolationException ex) {
+                log.error("Dropping queued comment {} of post {}", comment.provisionalId(), comment.postId(), ex);
+                droppedComments.increment();
+            }
+            comments.remove();
+        }
+    }
+
+    //after commit, the cached posts embed their comments
+    private void written(List<PendingComment> comments) {
+        flushedComments.increment(comments.size());
+        comments.stream().map(PendingComment::postId).distinct().forEach(postsCache::evict);
+    }
+
+    //the post rows are locked before the comments go in, as createComment and updateComment do, and in id order,
+    //inserting first would hold shared foreign key locks on the posts and then ask for exclusive ones
+    private void insert(List<PendingComment> comments) {
+        Set<Long> postIds = new TreeSet<>();
+        comments.forEach(comment -> postIds.add(comment.postId()));
+        jdbcTemplate.batchUpdate(INCREMENT_POST_VERSION, postIds, postIds.size(),
+                (statement, postId) -> statement.setLong(1, postId));
+        jdbcTemplate.batchUpdate(INSERT_COMMENT, comments, comments.size(), (statement, comment) -> {
+            statement.setString(1, comment.name());
+            statement.setString(2, comment.email());
+            statement.setString(3, comment.body());
+            statement.setLong(4, comment.postId());
+        });
+    }
+
+    private record PendingComment(String provisionalId, long postId, String name, String email, String body) {
+    }
+}
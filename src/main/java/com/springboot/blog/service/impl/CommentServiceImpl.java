@@ -4,14 +4,25 @@ import com.springboot.blog.entity.Comment;
 import com.springboot.blog.entity.Post;
 import com.springboot.blog.exception.BlogAPIException;
 import com.springboot.blog.exception.ResourceNotFoundException;
+import com.springboot.blog.mapper.CommentMapper;
 import com.springboot.blog.payload.CommentDto;
+import com.springboot.blog.payload.CommentPatchDto;
+import com.springboot.blog.payload.CommentResponse;
+import com.springboot.blog.payload.PatchResponse;
 import com.springboot.blog.repository.CommentRepository;
 import com.springboot.blog.repository.PostRepository;
+import com.springboot.blog.repository.projection.PostCommentView;
 import com.springboot.blog.service.CommentService;
+import com.springboot.blog.utils.AppConstants;
+import com.springboot.blog.utils.ETags;
 import lombok.RequiredArgsConstructor;
-import org.modelmapper.ModelMapper;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
@@ -21,61 +32,147 @@ public class CommentServiceImpl implements CommentService {
 
     private final CommentRepository commentRepository;
     private final PostRepository postRepository;
-    private final ModelMapper mapper;
+    private final CommentMapper mapper;
 
+    //the cached post embeds its comments
     @Override
+    @CacheEvict(cacheNames = AppConstants.POSTS_CACHE, key = "#postId")
+    @Transactional
     public CommentDto createComment(long postId, CommentDto commentDto) {
 
         Comment comment = mapToEntity(commentDto);
 
-        //retrieve post entity by id
-        Post post = postRepository.findById(postId).orElseThrow(() -> new ResourceNotFoundException("Post", "id", postId));
+        //bump the post version, no row updated means there is no such post
+        if (postRepository.incrementVersion(postId) == 0) {
+            throw new ResourceNotFoundException("Post", "id", postId);
+        }
 
         //set post to comment entity
-        comment.setPost(post);
+        comment.setPost(postRepository.getReferenceById(postId));
 
         //save comment entity and return it
         return mapToDto(commentRepository.save(comment));
     }
 
     @Override
-    public List<CommentDto> getCommentsByPostId(long postId) {
-        postRepository.findById(postId).orElseThrow(() -> new ResourceNotFoundException("Post", "id", postId));
-        List<Comment> comments = commentRepository.findByPostId(postId);
-        return comments.stream().map(this::mapToDto).toList();
+    @Transactional(readOnly = true)
+    public CommentResponse getCommentsByPostId(long postId) {
+        return getComments(postId, 0L, Pageable.unpaged(), false);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CommentResponse getCommentsByPostId(long postId, Long after, int pageNo, int pageSize) {
+        if (pageNo < 0 || pageSize < 1) {
+            throw new BlogAPIException(HttpStatus.BAD_REQUEST, "Invalid page or page size");
+        }
+        if (after != null) {
+            return getComments(postId, after, PageRequest.of(0, pageSize), true);
+        }
+        return getComments(postId, 0L, PageRequest.of(pageNo, pageSize), false);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long getCommentsVersion(long postId) {
+        return postRepository.findVersionById(postId).orElseThrow(() -> new ResourceNotFoundException("Post", "id", postId));
     }
 
     @Override
+    @Transactional(readOnly = true)
     public CommentDto getCommentById(long postId, long commentId) {
         Comment comment = getComment(postId, commentId);
         return mapToDto(comment);
 
     }
 
+    //a miss falls back to the full lookup, so a missing post or a comment of another post fails as getCommentById does
+    @Override
+    @Transactional(readOnly = true)
+    public long getCommentVersion(long postId, long commentId) {
+        return commentRepository.findVersion(postId, commentId).orElseGet(() -> getComment(postId, commentId).getVersion());
+    }
+
     @Override
+    @CacheEvict(cacheNames = AppConstants.POSTS_CACHE, key = "#postId")
+    @Transactional
     public CommentDto updateComment(long postId, long commentId, CommentDto commentDto) {
         Comment comment = getComment(postId, commentId);
         comment.setName(commentDto.getName());
         comment.setEmail(commentDto.getEmail());
         comment.setBody(commentDto.getBody());
+        postRepository.incrementVersion(postId);
 
         //save to database and return updated comment
-        return mapToDto(commentRepository.save(comment));
+        return mapToDto(commentRepository.saveAndFlush(comment));
+    }
+
+    //the post row is locked first, like every other comment write, then the comment is changed in place
+    @Override
+    @CacheEvict(cacheNames = AppConstants.POSTS_CACHE, key = "#postId")
+    @Transactional
+    public PatchResponse patchComment(long postId, long commentId, long expectedVersion, CommentPatchDto patch) {
+        if (patch.isEmpty()) {
+            throw new BlogAPIException(HttpStatus.BAD_REQUEST, "Nothing to update");
+        }
+        if (postRepository.incrementVersion(postId) == 0) {
+            throw new ResourceNotFoundException("Post", "id", postId);
+        }
+        //with the post locked no other comment write runs, "*" is the version read here
+        long version = expectedVersion != ETags.ANY_VERSION ? expectedVersion : commentRepository.findVersion(postId, commentId)
+                .orElseThrow(() -> new ResourceNotFoundException("Comment", "id", commentId));
+        if (commentRepository.patchComment(postId, commentId, version,
+                patch.getName(), patch.getEmail(), patch.getBody()) == 0) {
+            long current = commentRepository.findVersion(postId, commentId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Comment", "id", commentId));
+            throw new BlogAPIException(HttpStatus.PRECONDITION_FAILED, "Comment was modified, current version is " + current);
+        }
+        return new PatchResponse(commentId, version + 1);
     }
 
     @Override
+    @CacheEvict(cacheNames = AppConstants.POSTS_CACHE, key = "#postId")
+    @Transactional
     public void deleteComment(long postId, long commentId) {
         getComment(postId, commentId);
         commentRepository.deleteById(commentId);
+        postRepository.incrementVersion(postId);
     }
 
 
+    private CommentResponse getComments(long postId, long after, Pageable pageable, boolean cursor) {
+        Slice<PostCommentView> rows = commentRepository.findPostCommentsAfter(postId, after, pageable);
+
+        //the left join returns at least one row for an existing post, so an empty result is either
+        //a missing post or an offset past the last comment
+        long postVersion = rows.isEmpty() ? getCommentsVersion(postId) : rows.getContent().get(0).postVersion();
+        List<CommentDto> content = rows.getContent().stream()
+                .filter(row -> row.id() != null)
+                .map(mapper::mapToDTO)
+                .toList();
+
+        CommentResponse.CommentResponseBuilder response = CommentResponse.builder()
+                .content(content)
+                .last(!rows.hasNext())
+                .postVersion(postVersion);
+        if (pageable.isPaged()) {
+            response.size(pageable.getPageSize());
+            if (!cursor) {
+                response.page(pageable.getPageNumber());
+            }
+            if (rows.hasNext()) {
+                response.next(String.valueOf(content.get(content.size() - 1).getId()));
+            }
+        }
+        return response.build();
+    }
+
     private CommentDto mapToDto(Comment comment) {
-        return mapper.map(comment, CommentDto.class);
+        return mapper.mapToDTO(comment);
     }
 
     private Comment mapToEntity(CommentDto commentDto) {
-        return mapper.map(commentDto, Comment.class);
+        return mapper.mapToEntity(commentDto);
     }
 
     private Comment getComment(long postId, long commentId) {
@@ -0,0 +1,273 @@
+package com.springboot.blog.service.impl;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.io.JsonEOFException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.springboot.blog.exception.BlogAPIException;
+import com.springboot.blog.payload.BulkItemFailure;
+import com.springboot.blog.payload.CommentDto;
+import com.springboot.blog.payload.PostImportDto;
+import com.springboot.blog.payload.PostImportResponse;
+import com.springboot.blog.repository.CategoryRepository;
+import com.springboot.blog.search.PostSearchIndex;
+import com.springboot.blog.service.PostImportService;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PostImportServiceImpl implements PostImportService {
+
+    private static final int BATCH_SIZE = 500;
+    private static final int MAX_REPORTED_FAILURES = 1000;
+    private static final String INSERT_POST =
+            "insert into posts (title, description, content, category_id, version) values (?, ?, ?, ?, 0)";
+    private static final String INSERT_COMMENT =
+            "insert into comments (name, email, body, post_id, version) values (?, ?, ?, ?, 0)";
+
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CategoryRepository categoryRepository;
+    private final PostSearchIndex searchIndex;
+
+    @Override
+    public PostImportResponse importPosts(InputStream inputStream) throws IOException {
+        ImportProgress progress = new ImportProgress();
+        List<ImportItem> batch = new ArrayList<>(BATCH_SIZE);
+
+        //the array is read one post at a time, never materialized as a whole
+        try (JsonParser parser = objectMapper.createParser(inputStream)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new BlogAPIException(HttpStatus.BAD_REQUEST, "Expected a JSON array of posts");
+            }
+            long index = 0;
+            for (JsonToken token = parser.nextToken(); token != JsonToken.END_ARRAY; token = parser.nextToken()) {
+                if (token == null) {
+                    throw truncated(progress);
+                }
+                progress.received++;
+                if (token != JsonToken.START_OBJECT) {
+                    //a value that is not an object only rejects itself, an array is skipped as a whole
+                    progress.fail(index++, null, "Invalid post: expected a JSON object");
+                    parser.skipChildren();
+                    continue;
+                }
+                JsonNode node;
+                try {
+                    node = objectMapper.readTree(parser);
+                } catch (JsonEOFException ex) {
+                    throw truncated(progress);
+                } catch (JsonProcessingException ex) {
+                    //the parser cannot resume after malformed input, keep what was imported so far
+                    progress.fail(index, null, "Malformed post, import stopped: " + ex.getOriginalMessage());
+                    break;
+                }
+                PostImportDto post;
+                try {
+                    post = objectMapper.treeToValue(node, PostImportDto.class);
+                } catch (JsonProcessingException ex) {
+                    //well-formed JSON of the wrong shape (a string for categoryId...) only rejects this post
+                    JsonNode title = node.get("title");
+                    progress.fail(index++, title != null && title.isTextual() ? title.asText() : null,
+                            "Invalid post: " + ex.getOriginalMessage());
+                    continue;
+                }
+                batch.add(new ImportItem(index++, post));
+                if (batch.size() == BATCH_SIZE) {
+                    importBatch(batch, progress);
+                    batch.clear();
+                }
+            }
+        } catch (JsonEOFException ex) {
+            //skipChildren or nextToken ran into the end of the stream
+            throw truncated(progress);
+        }
+        if (!batch.isEmpty()) {
+            importBatch(batch, progress);
+        }
+        return progress.toResponse();
+    }
+
+    //the batches imported before the end are committed, the message says how many
+    private static BlogAPIException truncated(ImportProgress progress) {
+        return new BlogAPIException(HttpStatus.BAD_REQUEST,
+                "Truncated JSON array of posts, " + progress.imported + " posts were imported before the end");
+    }
+
+    private void importBatch(List<ImportItem> batch, ImportProgress progress) {
+        //categories are resolved with one query per batch
+        Set<Long> categoryIds = categoryRepository.findExistingIds(batch.stream()
+                .map(item -> item.post().getCategoryId())
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet()));
+
+        List<ImportItem> valid = new ArrayList<>(batch.size());
+        for (ImportItem item : batch) {
+            String error = validate(item.post(), categoryIds);
+            if (error != null) {
+                progress.fail(item.index(), item.post().getTitle(), error);
+            } else {
+                valid.add(item);
+            }
+        }
+        if (valid.isEmpty()) {
+            return;
+        }
+
+        List<ImportItem> imported = new ArrayList<>(valid.size());
+        try {
+            transactionTemplate.executeWithoutResult(status -> insert(valid));
+            imported.addAll(valid);
+        } catch (DataAccessException batchFailure) {
+            //one bad row fails the whole batch, retry row by row to isolate it
+            log.debug("Import batch failed, retrying row by row", batchFailure);
+            for (ImportItem item : valid) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> insert(List.of(item)));
+                    imported.add(item);
+                } catch (DataAccessException ex) {
+                    progress.fail(item.index(), item.post().getTitle(), ex.getMostSpecificCause().getMessage());
+                }
+            }
+        }
+        progress.imported(imported);
+        imported.forEach(item -> searchIndex.index(item.id, item.post().getTitle(),
+                item.post().getDescription(), item.post().getContent()));
+    }
+
+    private String validate(PostImportDto post, Set<Long> categoryIds) {
+        Set<ConstraintViolation<PostImportDto>> violations = validator.validate(post);
+        if (!violations.isEmpty()) {
+            return describe(violations);
+        }
+        if (post.getCategoryId() == null || !categoryIds.contains(post.getCategoryId())) {
+            return String.format("Category not found with id : '%s'", post.getCategoryId());
+        }
+        return null;
+    }
+
+    private static String describe(Set<? extends ConstraintViolation<?>> violations) {
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining(", "));
+    }
+
+    //plain JDBC batches: Hibernate cannot batch inserts of IDENTITY entities, the driver can and still returns the keys
+    private void insert(List<ImportItem> items) {
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (PreparedStatement posts = connection.prepareStatement(INSERT_POST, Statement.RETURN_GENERATED_KEYS)) {
+                for (ImportItem item : items) {
+                    PostImportDto post = item.post();
+                    posts.setString(1, post.getTitle());
+                    posts.setString(2, post.getDescription());
+                    posts.setString(3, post.getContent());
+                    posts.setLong(4, post.getCategoryId());
+                    posts.addBatch();
+                }
+                posts.executeBatch();
+                try (ResultSet keys = posts.getGeneratedKeys()) {
+                    for (ImportItem item : items) {
+                        keys.next();
+                        item.id = keys.getLong(1);
+                    }
+                }
+            }
+            try (PreparedStatement comments = connection.prepareStatement(INSERT_COMMENT)) {
+                for (ImportItem item : items) {
+                    if (item.post().getComments() == null) {
+                        continue;
+                    }
+                    for (CommentDto comment : item.post().getComments()) {
+                        comments.setString(1, comment.getName());
+                        comments.setString(2, comment.getEmail());
+                        comments.setString(3, comment.getBody());
+                        comments.setLong(4, item.id);
+                        comments.addBatch();
+                    }
+                }
+                comments.executeBatch();
+            }
+            return null;
+        });
+    }
+
+    private static final class ImportItem {
+
+        private final long index;
+        private final PostImportDto post;
+        //generated key, set by the insert
+        private long id;
+
+        ImportItem(long index, PostImportDto post) {
+            this.index = index;
+            this.post = post;
+        }
+
+        long index() {
+            return index;
+        }
+
+        PostImportDto post() {
+            return post;
+        }
+    }
+
+    private static final class ImportProgress {
+
+        private long received;
+        private long imported;
+        private long commentsImported;
+        private long failed;
+        private final List<BulkItemFailure> failures = new ArrayList<>();
+
+        void imported(List<ImportItem> items) {
+            imported += items.size();
+            commentsImported += items.stream()
+                    .mapToLong(item -> item.post().getComments() == null ? 0 : item.post().getComments().size())
+                    .sum();
+        }
+
+        void fail(long index, String key, String message) {
+            failed++;
+            if (failures.size() < MAX_REPORTED_FAILURES) {
+                failures.add(new BulkItemFailure(index, key, message));
+            }
+        }
+
+        PostImportResponse toResponse() {
+            return PostImportResponse.builder()
+                    .received(received)
+                    .imported(imported)
+                    .commentsImported(commentsImported)
+                    .failed(failed)
+                    .failures(failures)
+                    .build();
+        }
+    }
+}
@@ -1,30 +1,83 @@
 package com.springboot.blog.service.impl;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.springboot.blog.entity.Category;
 import com.springboot.blog.entity.Post;
+import com.springboot.blog.exception.BlogAPIException;
 import com.springboot.blog.exception.ResourceNotFoundException;
+import com.springboot.blog.mapper.CommentMapper;
+import com.springboot.blog.mapper.PostMapper;
+import com.springboot.blog.payload.CommentDto;
+import com.springboot.blog.payload.PatchResponse;
 import com.springboot.blog.payload.PostDto;
+import com.springboot.blog.payload.PostPatchDto;
 import com.springboot.blog.payload.PostResponse;
 import com.springboot.blog.repository.CategoryRepository;
+import com.springboot.blog.repository.CommentRepository;
 import com.springboot.blog.repository.PostRepository;
+import com.springboot.blog.repository.projection.CommentView;
+import com.springboot.blog.repository.projection.PostExportRow;
+import com.springboot.blog.repository.projection.PostView;
+import com.springboot.blog.search.PostSearchIndex;
+import com.springboot.blog.search.SearchHits;
 import com.springboot.blog.service.PostService;
+import com.springboot.blog.utils.AppConstants;
+import com.springboot.blog.utils.ETags;
+import com.springboot.blog.utils.PostCursor;
 import lombok.RequiredArgsConstructor;
-import org.modelmapper.ModelMapper;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.StringUtils;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class PostServiceImpl implements PostService {
 
+    //only indexed columns keep keyset pages flat (primary key and the unique title)
+    private static final Set<String> CURSOR_SORT_KEYS = Set.of("id", "title");
+    private static final int EXPORT_FLUSH_INTERVAL = 500;
+
     private final PostRepository postRepository;
-    private final ModelMapper mapper;
     private final CategoryRepository categoryRepository;
+    private final CommentRepository commentRepository;
+    private final PostMapper postMapper;
+    private final CommentMapper commentMapper;
+    private final PostSearchIndex searchIndex;
+    private final ObjectMapper objectMapper;
+    private final CacheManager cacheManager;
+    private final PostViewCounter postViewCounter;
+    //loads of uncached posts in progress, concurrent misses for one post share a single load
+    private final Map<Long, CompletableFuture<PostDto>> postLoads = new ConcurrentHashMap<>();
 
     @Override
     public PostDto createPost(PostDto postDto) {
@@ -34,10 +87,13 @@ public class PostServiceImpl implements PostService {
         Post post = mapToEntity(postDto);
         post.setCategory(category);
 
-        return mapToDTO(postRepository.save(post));
+        Post savedPost = postRepository.save(post);
+        searchIndex.index(savedPost.getId(), savedPost.getTitle(), savedPost.getDescription(), savedPost.getContent());
+        return mapToDTO(savedPost);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public PostResponse getAllPosts(int pageNo, int pageSize, String sortBy, String sortDir) {
 
         //create Sort instance
@@ -46,12 +102,10 @@ public class PostServiceImpl implements PostService {
 
         //create Pageable instance
         Pageable pageable = PageRequest.of(pageNo, pageSize, sort);
-        Page<Post> posts = postRepository.findAll(pageable);
+        Page<PostView> posts = postRepository.findAllViews(pageable);
 
         //get content for page object
-        List<Post> listOfPost = posts.getContent();
-
-        List<PostDto> content = listOfPost.stream().map(this::mapToDTO).toList();
+        List<PostDto> content = mapToDTOs(posts.getContent());
         return PostResponse.builder()
                 .content(content)
                 .page(posts.getNumber())
@@ -62,13 +116,126 @@ public class PostServiceImpl implements PostService {
                 .build();
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public PostResponse getAllPostsAfter(String after, int pageSize, String sortBy, String sortDir) {
+
+        if (pageSize < 1) {
+            throw new BlogAPIException(HttpStatus.BAD_REQUEST, "Page size must be greater than zero");
+        }
+        if (!CURSOR_SORT_KEYS.contains(sortBy)) {
+            throw new BlogAPIException(HttpStatus.BAD_REQUEST, "Cursor pagination is not supported for sort-by " + sortBy);
+        }
+        Sort.Direction direction = sortDir.equalsIgnoreCase(Sort.Direction.ASC.name()) ? Sort.Direction.ASC :
+                Sort.Direction.DESC;
+
+        //an empty cursor starts from the first page
+        PostCursor cursor = StringUtils.hasText(after) ? PostCursor.decode(after) : null;
+        if (cursor != null && (!cursor.sortBy().equals(sortBy) || cursor.direction() != direction)) {
+            throw new BlogAPIException(HttpStatus.BAD_REQUEST, "Cursor does not match the requested sorting");
+        }
+
+        //fetch one extra row to know if there is a next page without counting
+        List<PostView> posts = postRepository.findPostsAfter(sortBy, direction, cursor, pageSize + 1);
+        boolean last = posts.size() <= pageSize;
+        List<PostView> listOfPost = last ? posts : posts.subList(0, pageSize);
+
+        String next = null;
+        if (!last) {
+            PostView lastPost = listOfPost.get(listOfPost.size() - 1);
+            next = new PostCursor(sortBy, direction, sortValue(lastPost, sortBy), lastPost.id()).encode();
+        }
+
+        List<PostDto> content = mapToDTOs(listOfPost);
+        return PostResponse.builder()
+                .content(content)
+                .size(pageSize)
+                .last(last)
+                .next(next)
+                .build();
+    }
+
+    //every read is a view, cache hits included, so the cache is used here rather than through @Cacheable
+    //not read-only: what is loaded here is cached, a lagging replica would put a stale post in the cache
     @Override
     public PostDto getPostById(Long categoryId) {
-        Post post = postRepository.findById(categoryId).orElseThrow(() -> new ResourceNotFoundException("Post", "id", categoryId));
-        return mapToDTO(post);
+        Cache postsCache = cacheManager.getCache(AppConstants.POSTS_CACHE);
+        PostDto post = postsCache.get(categoryId, PostDto.class);
+        if (post == null) {
+            post = loadPost(postsCache, categoryId);
+        }
+        postViewCounter.increment(categoryId);
+        return withPendingViews(post);
+    }
+
+    //a cached post answers without a query, it is evicted by every write that changes its version
+    @Override
+    public long getPostVersion(long postId) {
+        PostDto cached = cacheManager.getCache(AppConstants.POSTS_CACHE).get(postId, PostDto.class);
+        if (cached != null) {
+            return cached.getVersion();
+        }
+        return postRepository.findVersionById(postId).orElseThrow(() -> new ResourceNotFoundException("Post", "id", postId));
+    }
+
+    @Override
+    public void countView(long postId) {
+        postViewCounter.increment(postId);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<PostDto> getMostViewedPosts(int size) {
+        if (size < 1) {
+            throw new BlogAPIException(HttpStatus.BAD_REQUEST, "Size must be greater than zero");
+        }
+        //ranked by the flushed counts, views of the last flush interval only show in the numbers
+        return mapToDTOs(postRepository.findMostViewed(PageRequest.of(0, size))).stream()
+                .map(this::withPendingViews)
+                .toList();
+    }
+
+    //no lock is held while querying (a cache loader runs inside one, pinning a virtual thread's carrier for the whole load)
+    private PostDto loadPost(Cache postsCache, Long id) {
+        CompletableFuture<PostDto> load = new CompletableFuture<>();
+        CompletableFuture<PostDto> inFlight = postLoads.putIfAbsent(id, load);
+        if (inFlight != null) {
+            try {
+                return inFlight.join();
+            } catch (CompletionException ex) {
+                throw ex.getCause() instanceof RuntimeException cause ? cause : ex;
+            }
+        }
+        try {
+            PostView view = postRepository.findViewById(id).orElseThrow(() -> new ResourceNotFoundException("Post", "id", id));
+            PostDto post = mapToDTOs(List.of(view)).get(0);
+            postsCache.put(id, post);
+            //writers evict after commit, one that committed between our read and our put evicted nothing: drop the stale entry
+            if (!post.getVersion().equals(postRepository.findVersionById(id).orElse(null))) {
+                postsCache.evict(id);
+            }
+            load.complete(post);
+            return post;
+        } catch (RuntimeException ex) {
+            load.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            postLoads.remove(id, load);
+        }
+    }
+
+    //cached posts are shared, the response is a copy that adds the views not flushed yet
+    private PostDto withPendingViews(PostDto post) {
+        long pending = postViewCounter.pending(post.getId());
+        if (pending == 0) {
+            return post;
+        }
+        return new PostDto(post.getId(), post.getTitle(), post.getDescription(), post.getContent(), post.getComments(),
+                post.getCategoryId(), post.getVersion(), post.getViewCount() + pending);
     }
 
     @Override
+    @CacheEvict(cacheNames = AppConstants.POSTS_CACHE, key = "#categoryId")
     public PostDto updatePost(PostDto postDto, Long categoryId) {
         //Get post by id from database
         Post post = postRepository.findById(categoryId).orElseThrow(() -> new ResourceNotFoundException("Post", "id", categoryId));
@@ -82,30 +249,177 @@ public class PostServiceImpl implements PostService {
         post.setCategory(category);
 
         Post updatedPost = postRepository.save(post);
+        searchIndex.index(updatedPost.getId(), updatedPost.getTitle(), updatedPost.getDescription(), updatedPost.getContent());
         return mapToDTO(updatedPost);
     }
 
+    //one UPDATE, no entity is loaded; the database only explains a failure afterwards
+    @Override
+    @CacheEvict(cacheNames = AppConstants.POSTS_CACHE, key = "#postId")
+    public PatchResponse patchPost(long postId, long expectedVersion, PostPatchDto patch) {
+        if (patch.isEmpty()) {
+            throw new BlogAPIException(HttpStatus.BAD_REQUEST, "Nothing to update");
+        }
+        if (patch.getTitle() != null && postRepository.existsByTitleAndIdNot(patch.getTitle(), postId)) {
+            throw new BlogAPIException(HttpStatus.BAD_REQUEST, "Title is already taken");
+        }
+        //"*" is the version read here, a write in between still fails the update below
+        long version = expectedVersion != ETags.ANY_VERSION ? expectedVersion
+                : postRepository.findVersionById(postId).orElseThrow(() -> new ResourceNotFoundException("Post", "id", postId));
+        int updated;
+        try {
+            updated = postRepository.patchPost(postId, version, patch.getTitle(), patch.getDescription(),
+                    patch.getContent(), patch.getCategoryId());
+        } catch (DataIntegrityViolationException ex) {
+            //the checks are repeated for a concurrent write, any other violation is not the client's to fix
+            if (patch.getCategoryId() != null && !categoryRepository.existsById(patch.getCategoryId())) {
+                throw new ResourceNotFoundException("Category", "id", patch.getCategoryId());
+            }
+            if (patch.getTitle() != null && postRepository.existsByTitleAndIdNot(patch.getTitle(), postId)) {
+                throw new BlogAPIException(HttpStatus.BAD_REQUEST, "Title is already taken");
+            }
+            throw ex;
+        }
+        if (updated == 0) {
+            long current = postRepository.findVersionById(postId).orElseThrow(() -> new ResourceNotFoundException("Post", "id", postId));
+            throw new BlogAPIException(HttpStatus.PRECONDITION_FAILED, "Post was modified, current version is " + current);
+        }
+        if (patch.getTitle() != null || patch.getDescription() != null || patch.getContent() != null) {
+            searchIndex.update(postId, patch.getTitle(), patch.getDescription(), patch.getContent());
+        }
+        return new PatchResponse(postId, version + 1);
+    }
+
+    //set-based, in foreign key order: neither the post nor its comments are loaded
     @Override
+    @CacheEvict(cacheNames = AppConstants.POSTS_CACHE, key = "#categoryId")
+    @Transactional
     public void deletePostById(Long categoryId) {
-        postRepository.findById(categoryId).orElseThrow(() -> new ResourceNotFoundException("Post", "id", categoryId));
-        postRepository.deleteById(categoryId);
+        if (postRepository.incrementVersion(categoryId) == 0) {
+            throw new ResourceNotFoundException("Post", "id", categoryId);
+        }
+        List<Long> ids = List.of(categoryId);
+        commentRepository.deleteAllByPostIdIn(ids);
+        postRepository.deleteAllByIdIn(ids);
+        //a rolled back delete keeps the post searchable
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                searchIndex.remove(categoryId);
+            }
+        });
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<PostDto> getPostByCategoryId(Long categoryId) {
-        categoryRepository.findById(categoryId).orElseThrow(() -> new ResourceNotFoundException("Category", "id", categoryId));
-        List<Post> posts = postRepository.findByCategoryId(categoryId);
+        if (!categoryRepository.existsById(categoryId)) {
+            throw new ResourceNotFoundException("Category", "id", categoryId);
+        }
+        List<PostView> posts = postRepository.findViewsByCategoryId(categoryId);
+
+        return mapToDTOs(posts);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public PostResponse searchPosts(String query, int pageNo, int pageSize) {
+
+        if (!StringUtils.hasText(query)) {
+            throw new BlogAPIException(HttpStatus.BAD_REQUEST, "Search query must not be empty");
+        }
+        if (pageNo < 0 || pageSize < 1) {
+            throw new BlogAPIException(HttpStatus.BAD_REQUEST, "Invalid page or page size");
+        }
+
+        //ranking and paging happen in the index, the database is only asked for the posts of this page by id
+        SearchHits hits = searchIndex.search(query, pageNo, pageSize);
+        Map<Long, PostView> postsById = hits.ids().isEmpty() ? Map.of() :
+                postRepository.findViewsByIdIn(hits.ids()).stream()
+                        .collect(Collectors.toMap(PostView::id, Function.identity()));
+        List<PostView> ranked = hits.ids().stream()
+                .map(postsById::get)
+                .filter(Objects::nonNull)
+                .toList();
+
+        int totalPages = (int) ((hits.total() + pageSize - 1) / pageSize);
+        return PostResponse.builder()
+                .content(mapToDTOs(ranked))
+                .page(pageNo)
+                .size(pageSize)
+                .totalElements(hits.total())
+                .totalPages(totalPages)
+                .last(pageNo >= totalPages - 1)
+                .build();
+    }
+
+    //one JSON document per line, only the post being written is held in memory
+    @Override
+    @Transactional(readOnly = true)
+    public void exportPosts(OutputStream outputStream) throws IOException {
+        try (Stream<PostExportRow> rows = postRepository.streamAllForExport();
+             SequenceWriter writer = objectMapper.writer()
+                     .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                     //flushed every EXPORT_FLUSH_INTERVAL posts instead of after each one
+                     .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                     .withRootValueSeparator("\n")
+                     .writeValues(outputStream)) {
+            PostDto current = null;
+            int written = 0;
+            for (Iterator<PostExportRow> iterator = rows.iterator(); iterator.hasNext(); ) {
+                PostExportRow row = iterator.next();
+                if (current == null || current.getId() != row.id()) {
+                    if (current != null) {
+                        writer.write(current);
+                        if (++written % EXPORT_FLUSH_INTERVAL == 0) {
+                            writer.flush();
+                        }
+                    }
+                    current = new PostDto(row.id(), row.title(), row.description(), row.content(),
+                            new LinkedHashSet<>(), row.categoryId(), row.version(), row.viewCount());
+                }
+                if (row.commentId() != null) {
+                    current.getComments().add(new CommentDto(row.commentId(), row.commentName(), row.commentEmail(),
+                            row.commentBody(), row.commentVersion()));
+                }
+            }
+            if (current != null) {
+                writer.write(current);
+                outputStream.write('\n');
+            }
+        }
+    }
+
+    private static String sortValue(PostView post, String sortBy) {
+        return "title".equals(sortBy) ? post.title() : String.valueOf(post.id());
+    }
+
+    //convert read projections to DTOs, loading the comments of all posts in a single query
+    private List<PostDto> mapToDTOs(List<PostView> posts) {
+        if (posts.isEmpty()) {
+            return List.of();
+        }
+        List<Long> postIds = posts.stream().map(PostView::id).toList();
+        Map<Long, Set<CommentDto>> commentsByPost = commentRepository.findViewsByPostIdIn(postIds).stream()
+                .collect(Collectors.groupingBy(CommentView::postId, LinkedHashMap::new,
+                        Collectors.mapping(commentMapper::mapToDTO, Collectors.toCollection(LinkedHashSet::new))));
 
-        return posts.stream().map(this::mapToDTO).toList();
+        return posts.stream()
+                .map(post -> {
+                    PostDto postDto = postMapper.mapToDTO(post);
+                    postDto.setComments(commentsByPost.getOrDefault(post.id(), new LinkedHashSet<>()));
+                    return postDto;
+                })
+                .toList();
     }
 
     //convert Entity to DTO
     private PostDto mapToDTO(Post post) {
-        return mapper.map(post, PostDto.class);
+        return postMapper.mapToDTO(post);
     }
 
     //convert DTO to Entity
     private Post mapToEntity(PostDto postDto) {
-        return mapper.map(postDto, Post.class);
+        return postMapper.mapToEntity(postDto);
     }
 }
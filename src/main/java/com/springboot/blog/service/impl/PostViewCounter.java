@@ -0,0 +1,141 @@
+package com.springboot.blog.service.impl;
+
+import com.springboot.blog.utils.AppConstants;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+//Post reads are counted in memory, LongAdder stripes the increments so concurrent readers of a hot post do not contend
+//A scheduled flush writes the accumulated deltas of every viewed post as one JDBC batch
+//View counts are not part of the post version, so the flush evicts the cached posts it changed instead
+@Slf4j
+@Component
+class PostViewCounter {
+
+    private static final String ADD_VIEWS = "update posts set view_count = view_count + ? where id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Cache postsCache;
+    private final Map<Long, Views> pending = new ConcurrentHashMap<>();
+    //test seams: run on the adding thread once its add is announced, and on the flusher once an entry is retired
+    Runnable afterAnnounce = () -> {
+    };
+    Runnable afterRetire = () -> {
+    };
+
+    PostViewCounter(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, CacheManager cacheManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.postsCache = cacheManager.getCache(AppConstants.POSTS_CACHE);
+    }
+
+    void increment(long postId) {
+        add(postId, 1);
+    }
+
+    //views counted since the last flush, not yet in the view_count column
+    long pending(long postId) {
+        Views views = pending.get(postId);
+        return views == null ? 0 : views.count.sum();
+    }
+
+    @Scheduled(fixedDelayString = "${app.post-views.flush-interval-milliseconds:10000}")
+    synchronized void flush() {
+        List<long[]> deltas = new ArrayList<>();
+        pending.forEach((postId, views) -> {
+            long delta = views.count.sum();
+            if (delta > 0) {
+                deltas.add(new long[]{postId, delta});
+            } else {
+                //idle posts are dropped; retiring is final, once the adds in flight have drained the count can no longer
+                //change, and what an add slipped in before the retirement moves to a fresh entry
+                pending.computeIfPresent(postId, (id, current) -> {
+                    current.retired = true;
+                    afterRetire.run();
+                    while (current.adding.sum() != 0) {
+                        Thread.onSpinWait();
+                    }
+                    long left = current.count.sum();
+                    return left == 0 ? null : new Views(left);
+                });
+            }
+        });
+        if (deltas.isEmpty()) {
+            return;
+        }
+        //id order, so the row locks are taken in the same order as other batched post updates
+        deltas.sort((left, right) -> Long.compare(left[0], right[0]));
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(ADD_VIEWS, deltas, deltas.size(),
+                    (statement, delta) -> {
+                        statement.setLong(1, delta[1]);
+                        statement.setLong(2, delta[0]);
+                    }));
+        } catch (DataAccessException ex) {
+            //nothing was taken from the adders, the next flush retries
+            log.warn("Flushing view counts of {} posts failed", deltas.size(), ex);
+            return;
+        }
+        //deltas leave the adders only once committed and after the cached post is evicted, so cached count plus pending()
+        //may briefly count a delta twice but never drops; increments made meanwhile stay in the adders
+        for (long[] delta : deltas) {
+            postsCache.evict(delta[0]);
+            add(delta[0], -delta[1]);
+        }
+    }
+
+    private void add(long postId, long views) {
+        //a retired entry refused the add without counting it, the retry finds its replacement or creates one
+        while (!pending.computeIfAbsent(postId, id -> new Views(0)).tryAdd(views, afterAnnounce)) {
+            Thread.onSpinWait();
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        flush();
+    }
+
+    private static final class Views {
+
+        private final LongAdder count = new LongAdder();
+        //adds in progress, striped like the count so a hot post does not contend on it
+        private final LongAdder adding = new LongAdder();
+        //set once by the flush that replaces or removes the entry, never cleared
+        private volatile boolean retired;
+
+        private Views(long views) {
+            count.add(views);
+        }
+
+        //an add announces itself before it checks retired and the flush retires before it waits for the announced adds,
+        //so either the flush waits for this add or this add sees the retirement and counts nothing
+        private boolean tryAdd(long views, Runnable afterAnnounce) {
+            adding.increment();
+            try {
+                afterAnnounce.run();
+                if (retired) {
+                    return false;
+                }
+                count.add(views);
+                return true;
+            } finally {
+                adding.decrement();
+            }
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.springboot.blog.service.impl;
+
+import com.springboot.blog.repository.UserRepository;
+
+//Users are inserted relying on the unique constraints, the cheap exists checks only run to explain a violation
+final class UserConflicts {
+
+    private UserConflicts() {
+    }
+
+    static String describe(UserRepository userRepository, String username, String email) {
+        if (userRepository.existsByUsername(username)) {
+            return "Username is already taken";
+        }
+        if (userRepository.existsByEmail(email)) {
+            return "Email is already taken";
+        }
+        return "Username or email is already taken";
+    }
+}
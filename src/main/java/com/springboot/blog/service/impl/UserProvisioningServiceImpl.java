@@ -0,0 +1,178 @@
+package com.springboot.blog.service.impl;
+
+import com.springboot.blog.RoleRepository;
+import com.springboot.blog.exception.BlogAPIException;
+import com.springboot.blog.payload.BulkItemFailure;
+import com.springboot.blog.payload.RegisterDto;
+import com.springboot.blog.payload.UserProvisioningResponse;
+import com.springboot.blog.repository.UserRepository;
+import com.springboot.blog.security.PasswordHashingExecutor;
+import com.springboot.blog.service.UserProvisioningService;
+import com.springboot.blog.utils.AppConstants;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+@Slf4j
+@Service
+public class UserProvisioningServiceImpl implements UserProvisioningService {
+
+    private static final int BATCH_SIZE = 500;
+    private static final int MAX_REPORTED_FAILURES = 1000;
+    private static final String INSERT_USER =
+            "insert into users (name, username, email, password, token_version) values (?, ?, ?, ?, 0)";
+    private static final String INSERT_USER_ROLE =
+            "insert into user_roles (user_id, role_id) values (?, ?)";
+
+    private final UserRepository userRepository;
+    private final RoleRepository roleRepository;
+    private final PasswordEncoder passwordEncoder;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    //BCrypt dominates provisioning, it shares the password hashing pool with logins and takes only part of it
+    private final PasswordHashingExecutor passwordHashingExecutor;
+    private final int parallelism;
+
+    public UserProvisioningServiceImpl(UserRepository userRepository,
+                                       RoleRepository roleRepository,
+                                       PasswordEncoder passwordEncoder,
+                                       JdbcTemplate jdbcTemplate,
+                                       TransactionTemplate transactionTemplate,
+                                       PasswordHashingExecutor passwordHashingExecutor,
+                                       @Value("${app.user-provisioning.parallelism:0}") int parallelism) {
+        this.userRepository = userRepository;
+        this.roleRepository = roleRepository;
+        this.passwordEncoder = passwordEncoder;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.passwordHashingExecutor = passwordHashingExecutor;
+        this.parallelism = parallelism;
+    }
+
+    @Override
+    public UserProvisioningResponse provisionUsers(List<RegisterDto> users) {
+        Long roleId = roleRepository.findIdByName(AppConstants.DEFAULT_ROLE)
+                .orElseThrow(() -> new BlogAPIException(HttpStatus.BAD_REQUEST, "User Role not set."));
+        List<BulkItemFailure> failures = new ArrayList<>();
+        long failed = 0;
+        long created = 0;
+
+        //duplicates inside the request are rejected up front, the database only sees conflicts with existing users
+        List<PendingUser> pending = new ArrayList<>(users.size());
+        Set<String> usernames = new HashSet<>();
+        Set<String> emails = new HashSet<>();
+        for (int index = 0; index < users.size(); index++) {
+            RegisterDto user = users.get(index);
+            String error = null;
+            if (!StringUtils.hasText(user.getUsername()) || !StringUtils.hasText(user.getEmail())
+                    || !StringUtils.hasText(user.getPassword())) {
+                error = "Username, email and password are required";
+            } else if (!usernames.add(user.getUsername().toLowerCase(Locale.ROOT))) {
+                error = "Username is already taken";
+            } else if (!emails.add(user.getEmail().toLowerCase(Locale.ROOT))) {
+                error = "Email is already taken";
+            }
+            if (error != null) {
+                failed++;
+                addFailure(failures, index, user.getUsername(), error);
+            } else {
+                pending.add(new PendingUser(index, user, null));
+            }
+        }
+
+        for (int from = 0; from < pending.size(); from += BATCH_SIZE) {
+            List<PendingUser> batch = hash(pending.subList(from, Math.min(from + BATCH_SIZE, pending.size())));
+            try {
+                transactionTemplate.executeWithoutResult(status -> insert(batch, roleId));
+                created += batch.size();
+            } catch (DataAccessException batchFailure) {
+                //one conflicting row fails the whole batch, retry row by row to isolate it
+                log.debug("Provisioning batch failed, retrying row by row", batchFailure);
+                for (PendingUser user : batch) {
+                    try {
+                        transactionTemplate.executeWithoutResult(status -> insert(List.of(user), roleId));
+                        created++;
+                    } catch (DataIntegrityViolationException ex) {
+                        failed++;
+                        addFailure(failures, user.index(), user.user().getUsername(), UserConflicts.describe(
+                                userRepository, user.user().getUsername(), user.user().getEmail()));
+                    } catch (DataAccessException ex) {
+                        failed++;
+                        addFailure(failures, user.index(), user.user().getUsername(),
+                                ex.getMostSpecificCause().getMessage());
+                    }
+                }
+            }
+        }
+
+        failures.sort(Comparator.comparingLong(BulkItemFailure::index));
+        return UserProvisioningResponse.builder()
+                .received(users.size())
+                .created(created)
+                .failed(failed)
+                .failures(failures)
+                .build();
+    }
+
+    private List<PendingUser> hash(List<PendingUser> batch) {
+        return passwordHashingExecutor.provision(batch, user -> new PendingUser(user.index(), user.user(),
+                passwordEncoder.encode(user.user().getPassword())), parallelism);
+    }
+
+    private void insert(List<PendingUser> users, Long roleId) {
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            List<Long> ids = new ArrayList<>(users.size());
+            try (PreparedStatement insertUsers = connection.prepareStatement(INSERT_USER, Statement.RETURN_GENERATED_KEYS)) {
+                for (PendingUser user : users) {
+                    insertUsers.setString(1, user.user().getName());
+                    insertUsers.setString(2, user.user().getUsername());
+                    insertUsers.setString(3, user.user().getEmail());
+                    insertUsers.setString(4, user.passwordHash());
+                    insertUsers.addBatch();
+                }
+                insertUsers.executeBatch();
+                try (ResultSet keys = insertUsers.getGeneratedKeys()) {
+                    while (keys.next()) {
+                        ids.add(keys.getLong(1));
+                    }
+                }
+            }
+            try (PreparedStatement insertRoles = connection.prepareStatement(INSERT_USER_ROLE)) {
+                for (Long id : ids) {
+                    insertRoles.setLong(1, id);
+                    insertRoles.setLong(2, roleId);
+                    insertRoles.addBatch();
+                }
+                insertRoles.executeBatch();
+            }
+            return null;
+        });
+    }
+
+    private static void addFailure(List<BulkItemFailure> failures, long index, String key, String message) {
+        if (failures.size() < MAX_REPORTED_FAILURES) {
+            failures.add(new BulkItemFailure(index, key, message));
+        }
+    }
+
+    private record PendingUser(long index, RegisterDto user, String passwordHash) {
+    }
+}
@@ -7,4 +7,8 @@ public class AppConstants {
     public static final String DEFAULT_SORT_BY = "id";
     public static final String DEFAULT_SORT_DIRECTION = "asc";
 
+    public static final String POSTS_CACHE = "posts";
+    public static final String ROLES_CACHE = "roles";
+    public static final String DEFAULT_ROLE = "ROLE_USER";
+
 }
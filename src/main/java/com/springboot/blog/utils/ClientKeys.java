@@ -0,0 +1,24 @@
+package com.springboot.blog.utils;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+//Identifies the client of a request: the username once authenticated, the remote address otherwise
+public final class ClientKeys {
+
+    private ClientKeys() {
+    }
+
+    public static String of(HttpServletRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.isAuthenticated()
+                && !(authentication instanceof AnonymousAuthenticationToken)) {
+            return "user:" + authentication.getName();
+        }
+        //behind a proxy this is the forwarded client address once server.forward-headers-strategy is set
+        return "ip:" + request.getRemoteAddr();
+    }
+
+}
@@ -0,0 +1,39 @@
+package com.springboot.blog.utils;
+
+import com.springboot.blog.exception.BlogAPIException;
+import org.springframework.http.HttpStatus;
+
+//Strong entity tags derived from the @Version column, the body is never hashed
+public final class ETags {
+
+    //If-Match: * matches whatever version is current, the service resolves it before its conditional write
+    public static final long ANY_VERSION = -1;
+
+    private ETags() {
+    }
+
+    public static String of(long version) {
+        return "\"" + version + "\"";
+    }
+
+    //version a conditional write expects, writes without If-Match are refused so no edit silently overwrites another
+    //Accepts "*" (ANY_VERSION) or one quoted strong tag; weak tags and lists are refused
+    public static long requireVersion(String ifMatch) {
+        if (ifMatch == null) {
+            throw new BlogAPIException(HttpStatus.PRECONDITION_REQUIRED, "If-Match header is required");
+        }
+        String tag = ifMatch.trim();
+        if (tag.equals("*")) {
+            return ANY_VERSION;
+        }
+        if (tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            try {
+                return Long.parseLong(tag.substring(1, tag.length() - 1));
+            } catch (NumberFormatException ignored) {
+                //reported below
+            }
+        }
+        throw new BlogAPIException(HttpStatus.PRECONDITION_FAILED, "If-Match must be a single entity tag of this resource");
+    }
+
+}
@@ -0,0 +1,179 @@
+package com.springboot.blog.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.springboot.blog.RoleRepository;
+import com.springboot.blog.entity.Role;
+import com.springboot.blog.entity.User;
+import com.springboot.blog.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class PostControllerTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private RoleRepository roleRepository;
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private String authorization;
+    private long categoryId;
+    private long postId;
+    private String otherTitle;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        jdbcTemplate.update("insert into categories (name, description, version) values (?, 'Patch tests', 0)", "patch " + suffix);
+        categoryId = jdbcTemplate.queryForObject("select id from categories where name = ?", Long.class, "patch " + suffix);
+        postId = insertPost("Patched " + suffix);
+        otherTitle = "Other " + suffix;
+        insertPost(otherTitle);
+
+        String username = "admin-" + suffix;
+        transactionTemplate.executeWithoutResult(status -> {
+            Role admin = roleRepository.findByName("ROLE_ADMIN").orElseGet(() -> roleRepository.save(new Role(null, "ROLE_ADMIN")));
+            userRepository.save(User.builder()
+                    .name("Admin")
+                    .username(username)
+                    .email(username + "@example.com")
+                    .password(passwordEncoder.encode("secret"))
+                    .roles(new HashSet<>(Set.of(admin)))
+                    .build());
+        });
+        String response = mockMvc.perform(post("/api/auth/login")
+                        .contentType("application/json")
+                        .content("{\"usernameOrEmail\":\"" + username + "\",\"password\":\"secret\"}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        authorization = "Bearer " + objectMapper.readTree(response).get("accessToken").asText();
+    }
+
+    @Test
+    void aPatchWithoutIfMatchIsRefused() throws Exception {
+        mockMvc.perform(patchPost(null, "{\"content\":\"new\"}"))
+                .andExpect(status().isPreconditionRequired());
+    }
+
+    @Test
+    void aPatchBasedOnAnOldVersionFails() throws Exception {
+        mockMvc.perform(patchPost("\"0\"", "{\"content\":\"first\"}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1\""));
+
+        mockMvc.perform(patchPost("\"0\"", "{\"content\":\"second\"}"))
+                .andExpect(status().isPreconditionFailed());
+        assertThat(content()).isEqualTo("first");
+    }
+
+    @Test
+    void ifMatchStarPatchesTheCurrentVersion() throws Exception {
+        mockMvc.perform(patchPost("\"0\"", "{\"content\":\"first\"}"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(patchPost("*", "{\"content\":\"second\"}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"2\""));
+        assertThat(content()).isEqualTo("second");
+    }
+
+    @Test
+    void weakAndListedTagsAreRefused() throws Exception {
+        mockMvc.perform(patchPost("W/\"0\"", "{\"content\":\"new\"}"))
+                .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(patchPost("\"0\", \"1\"", "{\"content\":\"new\"}"))
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    void aTakenTitleIsReported() throws Exception {
+        mockMvc.perform(patchPost("\"0\"", "{\"title\":\"" + otherTitle + "\"}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Title is already taken"));
+    }
+
+    @Test
+    void anUnknownCategoryIsReported() throws Exception {
+        mockMvc.perform(patchPost("\"0\"", "{\"categoryId\":" + Long.MAX_VALUE + "}"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void aCurrentIfNoneMatchIsAnsweredWithNotModified() throws Exception {
+        mockMvc.perform(get("/api/posts/" + postId).header(HttpHeaders.IF_NONE_MATCH, "\"0\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"0\""));
+    }
+
+    @Test
+    void aStaleIfNoneMatchGetsThePost() throws Exception {
+        mockMvc.perform(patchPost("\"0\"", "{\"content\":\"first\"}"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/posts/" + postId).header(HttpHeaders.IF_NONE_MATCH, "\"0\""))
+                .andExpect(status().isOk())
+                .andExpect(header().stringValues(HttpHeaders.ETAG, "\"1\""))
+                .andExpect(jsonPath("$.content").value("first"));
+        mockMvc.perform(get("/api/posts/" + postId))
+                .andExpect(status().isOk())
+                .andExpect(header().stringValues(HttpHeaders.ETAG, "\"1\""));
+    }
+
+    @Test
+    void aConditionalGetOfAnUnknownPostIsNotFound() throws Exception {
+        mockMvc.perform(get("/api/posts/" + Long.MAX_VALUE).header(HttpHeaders.IF_NONE_MATCH, "\"0\""))
+                .andExpect(status().isNotFound());
+    }
+
+    private MockHttpServletRequestBuilder patchPost(String ifMatch, String body) {
+        MockHttpServletRequestBuilder request = patch("/api/posts/" + postId)
+                .header(HttpHeaders.AUTHORIZATION, authorization)
+                .contentType("application/json")
+                .content(body);
+        return ifMatch == null ? request : request.header(HttpHeaders.IF_MATCH, ifMatch);
+    }
+
+    private long insertPost(String title) {
+        jdbcTemplate.update("insert into posts (title, description, content, category_id, version, view_count) "
+                + "values (?, 'description', 'content', ?, 0, 0)", title, categoryId);
+        return jdbcTemplate.queryForObject("select id from posts where title = ?", Long.class, title);
+    }
+
+    private String content() {
+        return jdbcTemplate.queryForObject("select content from posts where id = ?", String.class, postId);
+    }
+}
@@ -0,0 +1,164 @@
+package com.springboot.blog.datasource;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.springboot.blog.RoleRepository;
+import com.springboot.blog.entity.Category;
+import com.springboot.blog.entity.Role;
+import com.springboot.blog.entity.User;
+import com.springboot.blog.exception.ResourceNotFoundException;
+import com.springboot.blog.repository.CategoryRepository;
+import com.springboot.blog.repository.UserRepository;
+import com.springboot.blog.service.PostService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.StreamSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+//Primary and replica are two separate embedded databases: the replica gets a copy of the primary and then diverges,
+//so each read shows which database served it
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:routing-primary;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.hikari.pool-name=primary",
+        "app.datasource.replica.jdbc-url=jdbc:h2:mem:routing-replica;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "app.datasource.replica.username=sa",
+        "app.datasource.replica.password=",
+        "app.datasource.replica.pool-name=replica"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ReplicaRoutingTests {
+
+    private static final String INSERT_POST =
+            "insert into posts (title, description, content, category_id, version, view_count) values (?, ?, ?, ?, 0, 0)";
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private PostService postService;
+    @Autowired
+    private CategoryRepository categoryRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private RoleRepository roleRepository;
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private DataSource primaryDataSource;
+    @Autowired
+    @Qualifier("replicaDataSource")
+    private DataSource replicaDataSource;
+
+    private long categoryId;
+    private String username;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Category category = new Category();
+        category.setName("routing " + UUID.randomUUID());
+        category.setDescription("Routing test posts");
+        categoryId = categoryRepository.save(category).getId();
+        username = "writer-" + UUID.randomUUID().toString().substring(0, 8);
+        transactionTemplate.executeWithoutResult(status -> {
+            Role admin = roleRepository.findByName("ROLE_ADMIN").orElseGet(() -> roleRepository.save(new Role(null, "ROLE_ADMIN")));
+            userRepository.save(User.builder()
+                    .name("Writer")
+                    .username(username)
+                    .email(username + "@example.com")
+                    .password(passwordEncoder.encode("secret"))
+                    .roles(new HashSet<>(Set.of(admin)))
+                    .build());
+        });
+
+        //the replica starts as a copy of the primary
+        Path script = Files.createTempFile("primary", ".sql");
+        try {
+            new JdbcTemplate(primaryDataSource).execute("script to '" + script + "'");
+            JdbcTemplate replica = new JdbcTemplate(replicaDataSource);
+            replica.execute("drop all objects");
+            replica.execute("runscript from '" + script + "'");
+        } finally {
+            Files.delete(script);
+        }
+    }
+
+    @Test
+    void readOnlyServiceMethodsReadFromTheReplica() {
+        String title = "only on the replica " + UUID.randomUUID();
+        new JdbcTemplate(replicaDataSource).update(INSERT_POST, title, "Written to the replica only", "content", categoryId);
+        long id = new JdbcTemplate(replicaDataSource).queryForObject("select id from posts where title = ?", Long.class, title);
+
+        assertThat(postService.getAllPosts(0, 1000, "id", "asc").content())
+                .anySatisfy(post -> assertThat(post.getTitle()).isEqualTo(title));
+        //getPostById is not read-only, what it loads is cached, so it must come from the primary
+        assertThatThrownBy(() -> postService.getPostById(id)).isInstanceOf(ResourceNotFoundException.class);
+    }
+
+    @Test
+    void aWriterReadsItsOwnWritesFromThePrimary() throws Exception {
+        String authorization = "Bearer " + login();
+        String title = "fresh post " + UUID.randomUUID();
+        mockMvc.perform(post("/api/posts")
+                        .header("Authorization", authorization)
+                        .contentType("application/json")
+                        .content("{\"title\":\"" + title + "\",\"description\":\"Written to the primary\",\"content\":\"c\","
+                                + "\"categoryId\":" + categoryId + "}"))
+                .andExpect(status().isCreated());
+
+        //the writer is pinned to the primary for the read-your-writes window, other clients keep reading the replica
+        assertThat(listedTitles(authorization, "127.0.0.1")).contains(title);
+        assertThat(listedTitles(null, "10.0.0.9")).doesNotContain(title);
+    }
+
+    private String login() throws Exception {
+        String response = mockMvc.perform(post("/api/auth/login")
+                        .contentType("application/json")
+                        .content("{\"usernameOrEmail\":\"" + username + "\",\"password\":\"secret\"}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(response).get("accessToken").asText();
+    }
+
+    private List<String> listedTitles(String authorization, String remoteAddress) throws Exception {
+        var request = get("/api/posts").param("size", "1000").with(servletRequest -> {
+            servletRequest.setRemoteAddr(remoteAddress);
+            return servletRequest;
+        });
+        if (authorization != null) {
+            request.header("Authorization", authorization);
+        }
+        String response = mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        JsonNode content = objectMapper.readTree(response).get("content");
+        return StreamSupport.stream(content.spliterator(), false).map(post -> post.get("title").asText()).toList();
+    }
+}
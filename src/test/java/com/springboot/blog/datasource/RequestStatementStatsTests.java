@@ -0,0 +1,57 @@
+package com.springboot.blog.datasource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RequestStatementStatsTests {
+
+    @AfterEach
+    void tearDown() {
+        RequestStatementStats.clear();
+    }
+
+    @Test
+    void statementsOfPropagatedTasksAreCountedForTheRequest() {
+        RequestStatementStats stats = RequestStatementStats.start();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Supplier<Integer> task = RequestStatementStats.propagate(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    RequestStatementStats current = RequestStatementStats.current();
+                    current.callStarted();
+                    current.callFinished();
+                    current.statementExecuted();
+                    current.rowFetched();
+                }
+                return 0;
+            });
+            List<CompletableFuture<Integer>> tasks = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                tasks.add(CompletableFuture.supplyAsync(task, executor));
+            }
+            tasks.forEach(CompletableFuture::join);
+        } finally {
+            executor.shutdown();
+        }
+
+        assertThat(stats.getStatements()).isEqualTo(40_000);
+        assertThat(stats.getRows()).isEqualTo(40_000);
+        assertThat(stats.getNanos()).isNotNegative();
+    }
+
+    @Test
+    void threadsWithoutARequestAreNotCounted() {
+        assertThat(RequestStatementStats.current()).isNull();
+        Supplier<String> task = () -> "done";
+        assertThat(RequestStatementStats.propagate(task)).isSameAs(task);
+    }
+}
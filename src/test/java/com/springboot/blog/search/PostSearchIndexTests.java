@@ -0,0 +1,51 @@
+package com.springboot.blog.search;
+
+import com.springboot.blog.repository.PostRepository;
+import com.springboot.blog.repository.projection.PostView;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PostSearchIndexTests {
+
+    private final PostRepository postRepository = mock(PostRepository.class);
+    private final PostSearchIndex searchIndex = new PostSearchIndex(postRepository);
+
+    @Test
+    void aPostDeletedDuringTheRebuildStaysDeleted() {
+        when(postRepository.findPostsAfter(anyString(), any(), any(), anyInt())).thenAnswer(invocation -> {
+            //the batch was read, then post 2 was deleted and removed before the batch is applied
+            searchIndex.remove(2L);
+            return List.of(post(1L, "Spring caching"), post(2L, "Spring security"));
+        });
+
+        searchIndex.rebuild();
+
+        assertThat(searchIndex.search("spring", 0, 10).ids()).containsExactly(1L);
+        assertThat(searchIndex.size()).isEqualTo(1);
+    }
+
+    @Test
+    void patchingOneFieldKeepsTheOthersSearchable() {
+        searchIndex.index(1L, "Spring caching", "Caffeine in front of the database", "Caffeine caffeine caffeine");
+        searchIndex.index(2L, "Hibernate batching", "Caffeine mentioned once", "Nothing else");
+
+        searchIndex.update(1L, "Spring batching", null, null);
+
+        assertThat(searchIndex.search("caching", 0, 10).ids()).isEmpty();
+        assertThat(searchIndex.search("batching", 0, 10).ids()).containsExactlyInAnyOrder(1L, 2L);
+        //post 1 still has caffeine in two fields, four times
+        assertThat(searchIndex.search("caffeine", 0, 10).ids()).containsExactly(1L, 2L);
+    }
+
+    private static PostView post(long id, String title) {
+        return new PostView(id, title, "description", "content", 1L, 0L, 0L);
+    }
+}
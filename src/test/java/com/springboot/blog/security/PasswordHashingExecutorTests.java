@@ -0,0 +1,51 @@
+package com.springboot.blog.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PasswordHashingExecutorTests {
+
+    private final PasswordHashingExecutor executor = new PasswordHashingExecutor(new SimpleMeterRegistry(), 2, 10);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void provisioningLeavesThreadsForLogins() throws Exception {
+        Set<String> hashingThreads = ConcurrentHashMap.newKeySet();
+        CountDownLatch loggedIn = new CountDownLatch(1);
+        CompletableFuture<List<String>> provisioned = CompletableFuture.supplyAsync(() ->
+                executor.provision(List.of("a", "b", "c", "d"), password -> {
+                    hashingThreads.add(Thread.currentThread().getName());
+                    await(loggedIn);
+                    return password.toUpperCase();
+                }, 0));
+
+        //the provisioning holds one of the two threads until the login went through on the other
+        assertThat(executor.login(() -> "token")).isEqualTo("token");
+        loggedIn.countDown();
+
+        assertThat(provisioned.get(10, TimeUnit.SECONDS)).containsExactly("A", "B", "C", "D");
+        assertThat(hashingThreads).hasSize(1);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertThat(latch.await(10, TimeUnit.SECONDS)).isTrue();
+        } catch (InterruptedException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.springboot.blog.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimiterTests {
+
+    private static final long ONE_MINUTE = TimeUnit.MINUTES.toNanos(1);
+
+    @Test
+    void aBurstIsAllowedThenTheCallerWaitsOneInterval() {
+        RateLimiter limiter = new RateLimiter(ONE_MINUTE);
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(limiter.tryAcquire("client", 1, 5)).isZero();
+        }
+        assertThat(limiter.tryAcquire("client", 1, 5))
+                .isPositive()
+                .isLessThanOrEqualTo(TimeUnit.SECONDS.toNanos(1));
+    }
+
+    @Test
+    void clientsHaveTheirOwnBuckets() {
+        RateLimiter limiter = new RateLimiter(ONE_MINUTE);
+
+        assertThat(limiter.tryAcquire("first", 1, 1)).isZero();
+        assertThat(limiter.tryAcquire("first", 1, 1)).isPositive();
+        assertThat(limiter.tryAcquire("second", 1, 1)).isZero();
+    }
+
+    @Test
+    void aRejectedCallerIsAllowedAfterTheReturnedWait() throws Exception {
+        RateLimiter limiter = new RateLimiter(ONE_MINUTE);
+        long first = limiter.tryAcquire("client", 10, 1);
+        long wait = limiter.tryAcquire("client", 10, 1);
+
+        assertThat(first).isZero();
+        assertThat(wait).isPositive();
+        TimeUnit.NANOSECONDS.sleep(wait);
+
+        assertThat(limiter.tryAcquire("client", 10, 1)).isZero();
+    }
+
+    @Test
+    void concurrentCallersGetExactlyTheBurst() throws Exception {
+        RateLimiter limiter = new RateLimiter(ONE_MINUTE);
+        AtomicInteger allowed = new AtomicInteger();
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int thread = 0; thread < threads; thread++) {
+            executor.execute(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < 1_000; i++) {
+                        //one permit per 100 seconds, nothing refills during the test
+                        if (limiter.tryAcquire("client", 0.01, 100) == 0) {
+                            allowed.incrementAndGet();
+                        }
+                    }
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        start.countDown();
+        assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+        executor.shutdown();
+
+        assertThat(allowed.get()).isEqualTo(100);
+    }
+
+    @Test
+    void refilledBucketsAreEvicted() throws Exception {
+        RateLimiter limiter = new RateLimiter(0);
+        limiter.tryAcquire("idle", 1_000, 1);
+        TimeUnit.MILLISECONDS.sleep(5);
+
+        //the next allowed request runs the eviction, the busy bucket is not full yet
+        limiter.tryAcquire("busy", 1, 1);
+
+        assertThat(limiter.size()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,63 @@
+package com.springboot.blog.security;
+
+import com.springboot.blog.entity.RevokedToken;
+import com.springboot.blog.repository.RevokedTokenRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RevokedTokenRegistryTests {
+
+    private final RevokedTokenRepository repository = mock(RevokedTokenRepository.class);
+    private final Instant inAnHour = Instant.now().plus(Duration.ofHours(1));
+
+    @Test
+    void tokensRevokedBeforeAStartAreLoaded() {
+        when(repository.findByExpiresAtAfter(any())).thenReturn(List.of(new RevokedToken("revoked", inAnHour)));
+        RevokedTokenRegistry registry = new RevokedTokenRegistry(repository, 100);
+
+        registry.load();
+
+        assertThat(registry.isRevoked("revoked")).isTrue();
+        assertThat(registry.isRevoked("live")).isFalse();
+        assertThat(registry.isRevoked(null)).isFalse();
+        verify(repository).deleteExpired(any());
+    }
+
+    @Test
+    void aTokenIsRevokedOnlyOnce() {
+        RevokedTokenRegistry registry = new RevokedTokenRegistry(repository, 100);
+        registry.load();
+
+        assertThat(registry.revoke("refresh", inAnHour)).isTrue();
+        assertThat(registry.revoke("refresh", inAnHour)).isFalse();
+        assertThat(registry.isRevoked("refresh")).isTrue();
+        verify(repository, times(1)).save(any(RevokedToken.class));
+    }
+
+    @Test
+    void growingPastTheFilterCapacityKeepsEveryLiveRevocation() {
+        RevokedTokenRegistry registry = new RevokedTokenRegistry(repository, 10);
+        registry.load();
+        registry.revoke("expired", Instant.now().minusSeconds(1));
+
+        for (int i = 0; i < 100; i++) {
+            registry.revoke("token-" + i, inAnHour);
+        }
+
+        for (int i = 0; i < 100; i++) {
+            assertThat(registry.isRevoked("token-" + i)).isTrue();
+        }
+        //the rebuilds dropped what had already expired
+        assertThat(registry.isRevoked("expired")).isFalse();
+    }
+}
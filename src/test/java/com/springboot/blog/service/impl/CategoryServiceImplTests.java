@@ -0,0 +1,162 @@
+package com.springboot.blog.service.impl;
+
+import com.springboot.blog.mapper.CategoryMapper;
+import com.springboot.blog.payload.CategoryDeletionStatus;
+import com.springboot.blog.payload.CategoryDto;
+import com.springboot.blog.repository.CategoryRepository;
+import com.springboot.blog.repository.CommentRepository;
+import com.springboot.blog.repository.PostRepository;
+import com.springboot.blog.search.PostSearchIndex;
+import com.springboot.blog.utils.AppConstants;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CategoryServiceImplTests {
+
+    private final CategoryRepository categoryRepository = mock(CategoryRepository.class);
+    private final PostRepository postRepository = mock(PostRepository.class);
+    private final CommentRepository commentRepository = mock(CommentRepository.class);
+    private final PostSearchIndex searchIndex = mock(PostSearchIndex.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private final CategoryServiceImpl categoryService = new CategoryServiceImpl(categoryRepository, mock(CategoryMapper.class),
+            postRepository, commentRepository, searchIndex, new TransactionTemplate(transactionManager),
+            new ConcurrentMapCacheManager(AppConstants.POSTS_CACHE), 10, 5, Duration.ofHours(1));
+
+    @AfterEach
+    void tearDown() {
+        categoryService.shutdown();
+    }
+
+    CategoryServiceImplTests() {
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+    }
+
+    @Test
+    void aLargeCategoryIsDeletedInChunksByAJob() {
+        when(categoryRepository.existsById(1L)).thenReturn(true);
+        when(postRepository.countByCategoryId(1L)).thenReturn(12L);
+        when(postRepository.findIdsByCategoryId(eq(1L), any(Pageable.class)))
+                .thenReturn(List.of(1L, 2L, 3L, 4L, 5L))
+                .thenReturn(List.of(6L, 7L, 8L, 9L, 10L))
+                .thenReturn(List.of(11L, 12L));
+        when(categoryRepository.incrementVersion(1L)).thenReturn(1);
+        when(postRepository.findIdsByCategoryId(1L)).thenReturn(List.of(11L, 12L));
+
+        CategoryDeletionStatus started = categoryService.deleteCategory(1L).orElseThrow();
+        CategoryDeletionStatus finished = awaitFinished(started.id());
+
+        assertThat(finished.state()).isEqualTo(CategoryDeletionStatus.State.COMPLETED);
+        assertThat(finished.postsTotal()).isEqualTo(12);
+        assertThat(finished.postsDeleted()).isEqualTo(12);
+        verify(postRepository).deleteAllByIdIn(List.of(1L, 2L, 3L, 4L, 5L));
+        verify(postRepository).deleteAllByIdIn(List.of(6L, 7L, 8L, 9L, 10L));
+        verify(categoryRepository).deleteByIdInBulk(1L);
+        verify(searchIndex, times(12)).remove(anyLong());
+    }
+
+    @Test
+    void aJobWhoseCategoryWasDeletedMeanwhileCompletes() {
+        when(categoryRepository.existsById(1L)).thenReturn(true);
+        when(postRepository.countByCategoryId(1L)).thenReturn(12L);
+        when(postRepository.findIdsByCategoryId(eq(1L), any(Pageable.class)))
+                .thenReturn(List.of(1L, 2L, 3L, 4L, 5L))
+                .thenReturn(List.of());
+        //a synchronous DELETE removed the category after the first chunk
+        when(categoryRepository.incrementVersion(1L)).thenReturn(0);
+
+        CategoryDeletionStatus finished = awaitFinished(categoryService.deleteCategory(1L).orElseThrow().id());
+
+        assertThat(finished.state()).isEqualTo(CategoryDeletionStatus.State.COMPLETED);
+        assertThat(finished.postsDeleted()).isEqualTo(5);
+        assertThat(finished.error()).isNull();
+    }
+
+    @Test
+    void aFailedJobKeepsItsProgressAndCanBeStartedAgain() {
+        when(categoryRepository.existsById(1L)).thenReturn(true);
+        when(postRepository.countByCategoryId(1L)).thenReturn(12L);
+        when(postRepository.findIdsByCategoryId(eq(1L), any(Pageable.class))).thenReturn(List.of(1L, 2L, 3L, 4L, 5L));
+        when(postRepository.deleteAllByIdIn(List.of(1L, 2L, 3L, 4L, 5L)))
+                .thenReturn(5)
+                .thenThrow(new DataAccessResourceFailureException("Connection lost"));
+
+        CategoryDeletionStatus failed = awaitFinished(categoryService.deleteCategory(1L).orElseThrow().id());
+
+        assertThat(failed.state()).isEqualTo(CategoryDeletionStatus.State.FAILED);
+        assertThat(failed.postsDeleted()).isEqualTo(5);
+        assertThat(failed.error()).isEqualTo("Connection lost");
+        assertThat(categoryService.deleteCategory(1L).orElseThrow().id()).isNotEqualTo(failed.id());
+    }
+
+    @Test
+    void aRepeatedDeleteGetsTheRunningJob() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(categoryRepository.existsById(1L)).thenReturn(true);
+        when(postRepository.countByCategoryId(1L)).thenReturn(12L);
+        when(postRepository.findIdsByCategoryId(eq(1L), any(Pageable.class))).thenAnswer(invocation -> {
+            release.await(10, TimeUnit.SECONDS);
+            return List.of();
+        });
+
+        long first = categoryService.deleteCategory(1L).orElseThrow().id();
+        long second = categoryService.deleteCategory(1L).orElseThrow().id();
+        release.countDown();
+
+        assertThat(second).isEqualTo(first);
+        assertThat(awaitFinished(first).state()).isEqualTo(CategoryDeletionStatus.State.COMPLETED);
+    }
+
+    @Test
+    void aSmallCategoryIsDeletedRightAway() {
+        when(categoryRepository.existsById(1L)).thenReturn(true);
+        when(postRepository.countByCategoryId(1L)).thenReturn(3L);
+        when(categoryRepository.incrementVersion(1L)).thenReturn(1);
+        when(postRepository.findIdsByCategoryId(1L)).thenReturn(List.of(1L, 2L, 3L));
+
+        assertThat(categoryService.deleteCategory(1L)).isEmpty();
+        verify(commentRepository).deleteAllByPostIdIn(List.of(1L, 2L, 3L));
+        verify(categoryRepository).deleteByIdInBulk(1L);
+    }
+
+    @Test
+    void callersCannotChangeTheSnapshot() {
+        when(categoryRepository.findAllDtos()).thenReturn(List.of(new CategoryDto(1L, "Java", "Posts about Java", 0L)));
+
+        categoryService.getCategory(1L).setName("changed");
+        categoryService.getAllCategories().get(0).setDescription("changed");
+
+        assertThat(categoryService.getCategory(1L)).isEqualTo(new CategoryDto(1L, "Java", "Posts about Java", 0L));
+        assertThat(categoryService.getAllCategories()).containsExactly(new CategoryDto(1L, "Java", "Posts about Java", 0L));
+        verify(categoryRepository, times(1)).findAllDtos();
+    }
+
+    private CategoryDeletionStatus awaitFinished(long deletionId) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        CategoryDeletionStatus status;
+        while ((status = categoryService.getCategoryDeletion(deletionId)).state() == CategoryDeletionStatus.State.RUNNING) {
+            assertThat(System.nanoTime()).isLessThan(deadline);
+            Thread.onSpinWait();
+        }
+        return status;
+    }
+}
@@ -0,0 +1,202 @@
+package com.springboot.blog.service.impl;
+
+import com.springboot.blog.exception.BlogAPIException;
+import com.springboot.blog.payload.CommentDto;
+import com.springboot.blog.repository.PostRepository;
+import com.springboot.blog.utils.AppConstants;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockingDetails;
+import static org.mockito.Mockito.when;
+
+class CommentIngestionServiceImplTests {
+
+    private static final String INSERT_COMMENT =
+            "insert into comments (name, email, body, post_id, version) values (?, ?, ?, ?, 0)";
+    private static final String INCREMENT_POST_VERSION =
+            "update posts set version = version + 1 where id = ?";
+
+    private final PostRepository postRepository = mock(PostRepository.class);
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<String> inserted = new CopyOnWriteArrayList<>();
+    private CommentIngestionServiceImpl service;
+
+    @AfterEach
+    void stop() {
+        if (service != null && service.isRunning()) {
+            service.stop();
+        }
+    }
+
+    @Test
+    void transientFailuresAreRetriedUntilTheBatchIsWritten() {
+        AtomicInteger lookups = new AtomicInteger();
+        when(postRepository.findExistingIds(anyCollection())).thenAnswer(invocation -> {
+            if (lookups.incrementAndGet() == 1) {
+                throw new DataAccessResourceFailureException("connection reset");
+            }
+            return Set.of(1L, 2L);
+        });
+        AtomicInteger transactions = new AtomicInteger();
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> {
+            if (transactions.incrementAndGet() <= 2) {
+                throw new CannotCreateTransactionException("Connection is not available, request timed out after 5000ms");
+            }
+            return new SimpleTransactionStatus();
+        });
+        recordInserts(false);
+        service = start(Duration.ofMillis(50));
+
+        IntStream.range(0, 20).forEach(i -> service.enqueueComment(1 + i % 2, comment("body " + i)));
+        service.stop();
+
+        assertThat(inserted).containsExactlyInAnyOrderElementsOf(IntStream.range(0, 20).mapToObj(i -> "body " + i).toList());
+        assertThat(meterRegistry.counter("comments.ingestion.flushed").count()).isEqualTo(20);
+        assertThat(meterRegistry.counter("comments.ingestion.dropped").count()).isZero();
+    }
+
+    @Test
+    void aConstraintViolationOnlyDropsTheBadRow() {
+        when(postRepository.findExistingIds(anyCollection())).thenReturn(Set.of(1L));
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        recordInserts(true);
+        service = start(Duration.ofMillis(50));
+
+        service.enqueueComment(1, comment("first"));
+        service.enqueueComment(1, comment("bad"));
+        service.enqueueComment(1, comment("last"));
+        service.enqueueComment(2, comment("unknown post"));
+        service.stop();
+
+        assertThat(inserted).containsExactly("first", "last");
+        assertThat(meterRegistry.counter("comments.ingestion.flushed").count()).isEqualTo(2);
+        assertThat(meterRegistry.counter("comments.ingestion.dropped").count()).isEqualTo(2);
+    }
+
+    @Test
+    void aBatchWaitsForTheFlushIntervalUnderSteadyTraffic() throws InterruptedException {
+        when(postRepository.findExistingIds(anyCollection())).thenReturn(Set.of(1L));
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+        when(jdbcTemplate.batchUpdate(eq(INSERT_COMMENT), anyCollection(), anyInt(), any()))
+                .thenAnswer(invocation -> {
+                    batchSizes.add(invocation.<Collection<?>>getArgument(1).size());
+                    return new int[0][];
+                });
+        service = start(Duration.ofMillis(500));
+
+        //one comment every 20 ms, well inside the interval
+        for (int i = 0; i < 10; i++) {
+            service.enqueueComment(1, comment("body " + i));
+            Thread.sleep(20);
+        }
+        service.stop();
+
+        assertThat(batchSizes).containsExactly(10);
+    }
+
+    @Test
+    void thePostsAreLockedInIdOrderBeforeTheCommentsAreInserted() {
+        when(postRepository.findExistingIds(anyCollection())).thenReturn(Set.of(1L, 2L, 3L));
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        List<String> statements = new CopyOnWriteArrayList<>();
+        when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(), any()))
+                .thenAnswer(invocation -> {
+                    String sql = invocation.getArgument(0);
+                    statements.add(sql.equals(INCREMENT_POST_VERSION) ? "bump " + invocation.getArgument(1) : "insert");
+                    return new int[0][];
+                });
+        service = start(Duration.ofMillis(500));
+
+        service.enqueueComment(3, comment("third"));
+        service.enqueueComment(1, comment("first"));
+        service.enqueueComment(2, comment("second"));
+        service.stop();
+
+        assertThat(statements).containsExactly("bump [1, 2, 3]", "insert");
+    }
+
+    @Test
+    void noCommentIsAcceptedAfterStop() {
+        service = start(Duration.ofMillis(50));
+        service.stop();
+
+        assertThatThrownBy(() -> service.enqueueComment(1, comment("late")))
+                .isInstanceOf(BlogAPIException.class);
+    }
+
+    private CommentIngestionServiceImpl start(Duration flushInterval) {
+        CommentIngestionServiceImpl started = new CommentIngestionServiceImpl(postRepository, jdbcTemplate,
+                new TransactionTemplate(transactionManager), new ConcurrentMapCacheManager(AppConstants.POSTS_CACHE),
+                meterRegistry, 1000, 500, flushInterval, Duration.ofSeconds(30));
+        started.start();
+        return started;
+    }
+
+    //comments are recorded when their transaction commits, a body of "bad" fails the insert with a constraint violation
+    private void recordInserts(boolean rejectBad) {
+        List<String> current = new CopyOnWriteArrayList<>();
+        when(jdbcTemplate.batchUpdate(eq(INSERT_COMMENT), anyCollection(), anyInt(), any()))
+                .thenAnswer(invocation -> {
+                    Collection<Object> comments = invocation.getArgument(1);
+                    ParameterizedPreparedStatementSetter<Object> setter = invocation.getArgument(3);
+                    for (Object comment : comments) {
+                        PreparedStatement statement = mock(PreparedStatement.class);
+                        setter.setValues(statement, comment);
+                        String body = mockingDetails(statement).getInvocations().stream()
+                                .filter(call -> call.getArguments()[0].equals(3))
+                                .map(call -> (String) call.getArguments()[1])
+                                .findFirst().orElseThrow();
+                        if (rejectBad && body.equals("bad")) {
+                            throw new DataIntegrityViolationException("comment body rejected");
+                        }
+                        current.add(body);
+                    }
+                    return new int[0][];
+                });
+        doAnswer(invocation -> {
+            inserted.addAll(current);
+            current.clear();
+            return null;
+        }).when(transactionManager).commit(any());
+        doAnswer(invocation -> {
+            current.clear();
+            return null;
+        }).when(transactionManager).rollback(any());
+    }
+
+    private static CommentDto comment(String body) {
+        return new CommentDto(null, "reader", "reader@example.com", body, null);
+    }
+}
@@ -0,0 +1,135 @@
+package com.springboot.blog.service.impl;
+
+import com.springboot.blog.entity.Category;
+import com.springboot.blog.entity.Post;
+import com.springboot.blog.exception.BlogAPIException;
+import com.springboot.blog.payload.BulkItemFailure;
+import com.springboot.blog.payload.PostImportResponse;
+import com.springboot.blog.repository.CategoryRepository;
+import com.springboot.blog.repository.CommentRepository;
+import com.springboot.blog.repository.PostRepository;
+import com.springboot.blog.service.PostImportService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class PostImportServiceImplTests {
+
+    @Autowired
+    private PostImportService postImportService;
+    @Autowired
+    private CategoryRepository categoryRepository;
+    @Autowired
+    private PostRepository postRepository;
+    @Autowired
+    private CommentRepository commentRepository;
+
+    private long categoryId;
+    private String prefix;
+
+    @BeforeEach
+    void setUp() {
+        Category category = new Category();
+        category.setName("import " + UUID.randomUUID());
+        category.setDescription("Imported posts");
+        categoryId = categoryRepository.save(category).getId();
+        prefix = UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    @Test
+    void identicalCommentsAreAllImported() throws IOException {
+        String comment = "{\"name\":\"reader\",\"email\":\"reader@example.com\",\"body\":\"the same comment twice\"}";
+        PostImportResponse response = importPosts("[" + post("twins", String.valueOf(categoryId), comment + "," + comment) + "]");
+
+        assertThat(response.imported()).isEqualTo(1);
+        assertThat(response.commentsImported()).isEqualTo(2);
+        Post post = postRepository.findAll().stream()
+                .filter(candidate -> candidate.getTitle().equals(prefix + " twins"))
+                .findFirst().orElseThrow();
+        assertThat(commentRepository.findByPostId(post.getId())).hasSize(2);
+    }
+
+    @Test
+    void aRecordOfTheWrongShapeOnlyFailsItself() throws IOException {
+        PostImportResponse response = importPosts("["
+                + post("first", String.valueOf(categoryId), "") + ","
+                + post("wrong", "\"not a number\"", "") + ","
+                + post("last", String.valueOf(categoryId), "") + "]");
+
+        assertThat(response.received()).isEqualTo(3);
+        assertThat(response.imported()).isEqualTo(2);
+        assertThat(response.failed()).isEqualTo(1);
+        assertThat(response.failures()).singleElement().satisfies(failure -> {
+            assertThat(failure.index()).isEqualTo(1);
+            assertThat(failure.key()).isEqualTo(prefix + " wrong");
+        });
+    }
+
+    @Test
+    void malformedJsonStopsTheImportButKeepsWhatWasImported() throws IOException {
+        PostImportResponse response = importPosts("[" + post("kept", String.valueOf(categoryId), "") + ", {\"title\": ]");
+
+        assertThat(response.imported()).isEqualTo(1);
+        assertThat(response.failed()).isEqualTo(1);
+        assertThat(response.failures().get(0).message()).startsWith("Malformed post, import stopped");
+    }
+
+    @Test
+    void elementsThatAreNotObjectsOnlyFailThemselves() throws IOException {
+        PostImportResponse response = importPosts("["
+                + post("first", String.valueOf(categoryId), "") + ","
+                + "\"a string\", 42, null, [" + post("nested", String.valueOf(categoryId), "") + "],"
+                + post("last", String.valueOf(categoryId), "") + "]");
+
+        assertThat(response.received()).isEqualTo(6);
+        assertThat(response.imported()).isEqualTo(2);
+        assertThat(response.failed()).isEqualTo(4);
+        assertThat(response.failures()).extracting(BulkItemFailure::index).containsExactly(1L, 2L, 3L, 4L);
+        assertThat(postRepository.findAll()).extracting(Post::getTitle)
+                .contains(prefix + " first", prefix + " last")
+                .doesNotContain(prefix + " nested");
+    }
+
+    @Test
+    void aTopLevelValueOtherThanAnArrayIsRejected() {
+        assertThatThrownBy(() -> importPosts(post("alone", String.valueOf(categoryId), "")))
+                .isInstanceOfSatisfying(BlogAPIException.class,
+                        ex -> assertThat(ex.getStatus()).isEqualTo(HttpStatus.BAD_REQUEST));
+    }
+
+    @Test
+    void aTruncatedArrayIsRejected() {
+        String complete = post("complete", String.valueOf(categoryId), "");
+        assertThatThrownBy(() -> importPosts("[" + complete))
+                .isInstanceOfSatisfying(BlogAPIException.class,
+                        ex -> assertThat(ex.getStatus()).isEqualTo(HttpStatus.BAD_REQUEST));
+        assertThatThrownBy(() -> importPosts("[" + complete + ", {\"title\": \"cut"))
+                .isInstanceOfSatisfying(BlogAPIException.class,
+                        ex -> assertThat(ex.getStatus()).isEqualTo(HttpStatus.BAD_REQUEST));
+        assertThatThrownBy(() -> importPosts("[" + complete + ", [1, 2"))
+                .isInstanceOfSatisfying(BlogAPIException.class,
+                        ex -> assertThat(ex.getStatus()).isEqualTo(HttpStatus.BAD_REQUEST));
+    }
+
+    private PostImportResponse importPosts(String json) throws IOException {
+        return postImportService.importPosts(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private String post(String title, String categoryId, String comments) {
+        return "{\"title\":\"" + prefix + " " + title + "\",\"description\":\"An imported post\",\"content\":\"content\","
+                + "\"categoryId\":" + categoryId + ",\"comments\":[" + comments + "]}";
+    }
+}
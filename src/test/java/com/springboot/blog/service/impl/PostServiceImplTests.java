@@ -0,0 +1,89 @@
+package com.springboot.blog.service.impl;
+
+import com.springboot.blog.exception.BlogAPIException;
+import com.springboot.blog.payload.PostDto;
+import com.springboot.blog.payload.PostResponse;
+import com.springboot.blog.service.PostService;
+import com.springboot.blog.utils.PostCursor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class PostServiceImplTests {
+
+    @Autowired
+    private PostService postService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        jdbcTemplate.update("insert into categories (name, description, version) values (?, 'Cursor tests', 0)", "cursor " + suffix);
+        long categoryId = jdbcTemplate.queryForObject("select id from categories where name = ?", Long.class, "cursor " + suffix);
+        for (int i = 0; i < 25; i++) {
+            //the separator of the encoded cursor inside the sort value
+            String title = (i % 2 == 0 ? "Cursor: " : "cursor ") + i + " " + suffix;
+            jdbcTemplate.update("insert into posts (title, description, content, category_id, version, view_count) "
+                    + "values (?, 'description', 'content', ?, 0, 0)", title, categoryId);
+        }
+    }
+
+    @Test
+    void cursorPagesVisitEveryPostOnceInTitleOrder() {
+        assertThat(walk("title", "asc")).isEqualTo(jdbcTemplate.queryForList("select id from posts order by title, id", Long.class));
+        assertThat(walk("title", "desc")).isEqualTo(jdbcTemplate.queryForList("select id from posts order by title desc, id desc", Long.class));
+    }
+
+    @Test
+    void cursorPagesVisitEveryPostOnceInIdOrder() {
+        assertThat(walk("id", "desc")).isEqualTo(jdbcTemplate.queryForList("select id from posts order by id desc", Long.class));
+    }
+
+    @Test
+    void aCursorOnlyContinuesTheSortingItWasIssuedFor() {
+        String next = postService.getAllPostsAfter(null, 5, "title", "asc").next();
+
+        assertThatThrownBy(() -> postService.getAllPostsAfter(next, 5, "title", "desc"))
+                .isInstanceOf(BlogAPIException.class)
+                .hasMessage("Cursor does not match the requested sorting");
+        assertThatThrownBy(() -> postService.getAllPostsAfter("not a cursor", 5, "title", "asc"))
+                .isInstanceOf(BlogAPIException.class)
+                .hasMessage("Invalid cursor");
+        assertThatThrownBy(() -> postService.getAllPostsAfter(null, 5, "content", "asc"))
+                .isInstanceOf(BlogAPIException.class);
+    }
+
+    @Test
+    void aCursorSurvivesSeparatorsInTheSortValue() {
+        PostCursor cursor = new PostCursor("title", Sort.Direction.ASC, "a:b:c", 42);
+
+        assertThat(PostCursor.decode(cursor.encode())).isEqualTo(cursor);
+    }
+
+    private List<Long> walk(String sortBy, String sortDir) {
+        List<Long> ids = new ArrayList<>();
+        String next = null;
+        PostResponse page;
+        do {
+            page = postService.getAllPostsAfter(next, 7, sortBy, sortDir);
+            page.content().stream().map(PostDto::getId).forEach(ids::add);
+            next = page.next();
+        } while (!page.last());
+        assertThat(next).isNull();
+        return ids;
+    }
+}
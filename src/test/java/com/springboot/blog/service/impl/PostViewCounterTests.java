@@ -0,0 +1,148 @@
+package com.springboot.blog.service.impl;
+
+import com.springboot.blog.utils.AppConstants;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PostViewCounterTests {
+
+    private static final int POSTS = 8;
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    //what the batches wrote to view_count, per post
+    private final Map<Long, Long> written = new ConcurrentHashMap<>();
+    private final PostViewCounter counter = new PostViewCounter(jdbcTemplate, new TransactionTemplate(transactionManager),
+            new ConcurrentMapCacheManager(AppConstants.POSTS_CACHE));
+
+    @Test
+    void noViewIsLostWhileFlushesRun() throws Exception {
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        recordWrites();
+        int readers = 8;
+        int viewsPerReader = 20_000;
+        ExecutorService executor = Executors.newFixedThreadPool(readers);
+        CountDownLatch done = new CountDownLatch(readers);
+        for (int reader = 0; reader < readers; reader++) {
+            executor.execute(() -> {
+                for (int view = 0; view < viewsPerReader; view++) {
+                    //bursts leave posts idle between flushes, so idle adders are removed while others still count
+                    counter.increment((view / 500) % POSTS);
+                }
+                done.countDown();
+            });
+        }
+        AtomicBoolean flushing = new AtomicBoolean(true);
+        Thread flusher = new Thread(() -> {
+            while (flushing.get()) {
+                counter.flush();
+            }
+        });
+        flusher.start();
+        assertThat(done.await(30, TimeUnit.SECONDS)).isTrue();
+        flushing.set(false);
+        flusher.join();
+        executor.shutdown();
+
+        counter.flush();
+        long total = 0;
+        for (long postId = 0; postId < POSTS; postId++) {
+            total += written.getOrDefault(postId, 0L) + counter.pending(postId);
+        }
+        assertThat(total).isEqualTo((long) readers * viewsPerReader);
+    }
+
+    @Test
+    void anAddRacingTheRemovalOfAnIdlePostIsCountedOnce() throws Exception {
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        recordWrites();
+        counter.increment(1);
+        counter.flush();
+        assertThat(counter.pending(1)).isZero();
+
+        //the add announces itself, then waits until the next flush has retired the idle entry
+        CountDownLatch announced = new CountDownLatch(1);
+        CountDownLatch retired = new CountDownLatch(1);
+        AtomicBoolean first = new AtomicBoolean(true);
+        Thread adder = new Thread(() -> counter.increment(1));
+        counter.afterAnnounce = () -> {
+            if (Thread.currentThread() == adder && first.compareAndSet(true, false)) {
+                announced.countDown();
+                await(retired);
+            }
+        };
+        counter.afterRetire = retired::countDown;
+        adder.start();
+        assertThat(announced.await(10, TimeUnit.SECONDS)).isTrue();
+
+        counter.flush();
+        adder.join(10_000);
+
+        assertThat(adder.isAlive()).isFalse();
+        assertThat(retired.getCount()).isZero();
+        assertThat(counter.pending(1)).isEqualTo(1);
+        counter.flush();
+        assertThat(written).containsEntry(1L, 2L);
+        assertThat(counter.pending(1)).isZero();
+    }
+
+    @Test
+    void aFailedFlushKeepsTheViews() {
+        when(transactionManager.getTransaction(any()))
+                .thenThrow(new DataAccessResourceFailureException("connection reset"))
+                .thenReturn(new SimpleTransactionStatus());
+        recordWrites();
+        counter.increment(1);
+        counter.increment(1);
+
+        counter.flush();
+        assertThat(written).isEmpty();
+        assertThat(counter.pending(1)).isEqualTo(2);
+
+        counter.flush();
+        assertThat(written).containsEntry(1L, 2L);
+        assertThat(counter.pending(1)).isZero();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertThat(latch.await(10, TimeUnit.SECONDS)).isTrue();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void recordWrites() {
+        when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenAnswer(invocation -> {
+                    for (long[] delta : invocation.<Collection<long[]>>getArgument(1)) {
+                        written.merge(delta[0], delta[1], Long::sum);
+                    }
+                    return new int[0][];
+                });
+    }
+}